@@ -51,6 +51,11 @@ import java.util.Optional;
  * call the static methods of your class, and {@code default} behavior of interface remains the
  * same, this means that if you don't implement the method on the class, the default method
  * implementation declared in this interface will be invoked.
+ *
+ * <p>Handler classes that implements this interface are instantiated for each generated implementation,
+ * unless they declare a {@code INSTANCE} static field. The {@code INSTANCE} (as well as the proxy of static
+ * methods) is shared by all generations, which may run concurrently, so it must be thread-safe: state of
+ * a generation must be stored in the {@link TypedData} received by the methods instead of handler fields.
  */
 public interface AdditionalHandler {
 
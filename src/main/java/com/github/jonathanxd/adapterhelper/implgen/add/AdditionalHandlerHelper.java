@@ -31,11 +31,24 @@ import com.github.jonathanxd.koresproxy.KoresProxy;
 import com.github.jonathanxd.koresproxy.InvokeSuper;
 import com.github.jonathanxd.koresproxy.gen.DirectInvocationCustom;
 
+import java.util.function.Supplier;
+
 /**
  * Additional handler proxy factory.
  */
 public class AdditionalHandlerHelper {
 
+    /**
+     * Factories of handlers resolved by {@link #from(Class)}, per handler class. {@link ClassValue} does not
+     * prevent handler classes (and their proxies) from being unloaded.
+     */
+    private static final ClassValue<Supplier<AdditionalHandler>> HANDLERS = new ClassValue<Supplier<AdditionalHandler>>() {
+        @Override
+        protected Supplier<AdditionalHandler> computeValue(Class<?> type) {
+            return AdditionalHandlerHelper.resolve(type);
+        }
+    };
+
     public static AdditionalHandler createAdd(Class<?> refc) {
 
         return (AdditionalHandler) KoresProxy.newProxyInstance(new Class[0], new Object[0], it ->
@@ -49,26 +62,49 @@ public class AdditionalHandlerHelper {
 
     }
 
+    /**
+     * Gets the handler of {@code refc}: the {@code INSTANCE} of {@code refc} if present, a new instance of
+     * {@code refc} (per call) if it is an {@link AdditionalHandler}, or a proxy to its static methods otherwise.
+     * Only the {@code INSTANCE} and the proxy are shared, and they are resolved only once per class.
+     *
+     * @param refc Handler class.
+     * @return Handler of {@code refc}.
+     */
     public static AdditionalHandler from(Class<?> refc) {
+        return HANDLERS.get(refc).get();
+    }
+
+    private static Supplier<AdditionalHandler> resolve(Class<?> refc) {
         if (AdditionalHandler.class.isAssignableFrom(refc)) {
-            Exception e = null;
+            Exception e;
+
             try {
+                AdditionalHandler instance = (AdditionalHandler) refc.getDeclaredField("INSTANCE").get(null);
+                return () -> instance;
+            } catch (NoSuchFieldException | IllegalAccessException e0) {
+                e = e0;
+            }
+
+            return () -> {
                 try {
-                    return (AdditionalHandler) refc.getDeclaredField("INSTANCE").get(null);
-                } catch (NoSuchFieldException | IllegalAccessException e0) {
-                    e = e0;
-                }
-                return (AdditionalHandler) refc.newInstance();
-            } catch (InstantiationException | IllegalAccessException e0) {
-                e0.addSuppressed(e);
+                    return (AdditionalHandler) refc.newInstance();
+                } catch (InstantiationException | IllegalAccessException e0) {
+                    e0.addSuppressed(e);
 
-                throw new IllegalArgumentException(
-                        String.format("Input handler class '%s' need to have an empty constructor or a INSTANCE static field.",
-                                refc.getCanonicalName()),
-                        e0);
-            }
+                    throw AdditionalHandlerHelper.invalid(refc, e0);
+                }
+            };
         }
 
-        return AdditionalHandlerHelper.createAdd(refc);
+        AdditionalHandler proxy = AdditionalHandlerHelper.createAdd(refc);
+
+        return () -> proxy;
+    }
+
+    private static IllegalArgumentException invalid(Class<?> refc, Exception cause) {
+        return new IllegalArgumentException(
+                String.format("Input handler class '%s' need to have an empty constructor or a INSTANCE static field.",
+                        refc.getCanonicalName()),
+                cause);
     }
 }
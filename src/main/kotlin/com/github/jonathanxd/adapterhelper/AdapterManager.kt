@@ -27,6 +27,8 @@
  */
 package com.github.jonathanxd.adapterhelper
 
+import com.github.jonathanxd.adapterhelper.implgen.GenerationScope
+import com.github.jonathanxd.adapterhelper.implgen.PregeneratedAdapters
 import com.github.jonathanxd.adapterhelper.wrapper.AdapterList
 import com.github.jonathanxd.adapterhelper.wrapper.AdapterMap
 import com.github.jonathanxd.adapterhelper.wrapper.AdapterSet
@@ -35,11 +37,12 @@ import com.github.jonathanxd.adapterhelper.wrapper.func.AdapterListFunc
 import com.github.jonathanxd.adapterhelper.wrapper.func.AdapterMapFunc
 import com.github.jonathanxd.adapterhelper.wrapper.func.AdapterSetFunc
 import com.github.jonathanxd.iutils.`object`.Pair
-import com.github.jonathanxd.iutils.map.WeakValueHashMap
 import com.github.jonathanxd.iutils.optional.Require
 import com.github.jonathanxd.iutils.reflection.ClassUtil
 import com.github.jonathanxd.iutils.type.Primitive
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicReference
 
 /**
  * Manages all Adapter Specifications.
@@ -108,42 +111,87 @@ import java.util.*
  * does not work with implementation types unless you register them or lookup using interface type.
  *
  */
-open class AdapterManager {
+open class AdapterManager @JvmOverloads constructor(
+        /**
+         * True if this manager can be safely used by multiple threads. Registry lookups never lock,
+         * regardless of this mode, and concurrent managers store adapter instances in lock-striped caches,
+         * use concurrent converter maps and a synchronized [storage].
+         */
+        val isConcurrent: Boolean = false,
+        /**
+         * Scope shared by a group of managers to define generated classes, or `null` to use a scope
+         * owned by this manager (see [generationScope]).
+         */
+        generationScope: GenerationScope? = null) {
+
+    /**
+     * Lock of [registry] modifications.
+     */
+    private val registryLock = Any()
+
+    /**
+     * Current snapshot of registered specifications, replaced (never modified) on [register] and [unregister].
+     */
+    @Volatile
+    protected var registry: Registry = Registry(emptySet(), emptyMap())
+        private set
 
     /**
-     * Set that store all registered [AdapterSpecification].
+     * Immutable view of registered [AdapterSpecification]s.
      */
-    protected val adapterSpecificationSet: MutableSet<AdapterSpecification<*, *>> = HashSet()
+    val unmodAdapterSpecificationSet: Set<AdapterSpecification<*, *>>
+        get() = this.registry.specifications
 
     /**
-     * Immutable view of [adapterSpecificationSet].
+     * Adapter instance caches of each [AdapterSpecification], stores both weak and strong cached instances.
      */
-    val unmodAdapterSpecificationSet = Collections.unmodifiableSet(this.adapterSpecificationSet)
+    protected val instanceCaches: MutableMap<AdapterSpecification<*, *>, SpecificationCache> =
+            if (this.isConcurrent) ConcurrentHashMap() else HashMap()
 
     /**
-     * Weak value map that stores generated instances. (The value must be weak).
+     * Reverse index of adaptees to [instanceCaches] that holds strong cached adapters of them.
      */
-    protected val cache: MutableMap<Pair<AdapterSpecification<*, *>, Any>, Any> = WeakValueHashMap()
+    protected val strongCacheIndex = StrongCacheIndex(this.isConcurrent)
 
     /**
-     * Immutable view of [cache].
+     * Immutable snapshot of weak cached adapter instances. Each access copies the current cached instances,
+     * changes to the cache are not reflected in returned map.
      */
-    val unmodCache = Collections.unmodifiableMap(this.cache)
+    val unmodCache: Map<Pair<AdapterSpecification<*, *>, Any>, Any>
+        get() = Collections.unmodifiableMap(mutableMapOf<Pair<AdapterSpecification<*, *>, Any>, Any>().also { map ->
+            this.instanceCaches.values.forEach { it.copyTo(map, strong = false) }
+        })
 
     /**
-     * Value map that stores generated instances using strong reference.
+     * Immutable snapshot of strong cached adapter instances. Each access copies the current cached instances,
+     * changes to the cache are not reflected in returned map.
      */
-    protected val strongCache = mutableMapOf<Pair<AdapterSpecification<*, *>, Any>, Any>()
+    val unmodStrongCache: Map<Pair<AdapterSpecification<*, *>, Any>, Any>
+        get() = Collections.unmodifiableMap(mutableMapOf<Pair<AdapterSpecification<*, *>, Any>, Any>().also { map ->
+            this.instanceCaches.values.forEach { it.copyTo(map, strong = true) }
+        })
 
     /**
-     * Immutable view of [strongCache].
+     * Immutable snapshot of weak cached adapter instances, kept for compatibility with subclasses.
+     * Adapter instances are stored in [instanceCaches], use [SpecificationCache] functions to modify them.
      */
-    val unmodStrongCache = Collections.unmodifiableMap(this.strongCache)
+    @Deprecated("Adapter instances are stored in instanceCaches.", ReplaceWith("this.unmodCache"))
+    protected val cache: Map<Pair<AdapterSpecification<*, *>, Any>, Any>
+        get() = this.unmodCache
+
+    /**
+     * Immutable snapshot of strong cached adapter instances, kept for compatibility with subclasses.
+     * Adapter instances are stored in [instanceCaches], use [SpecificationCache] functions to modify them.
+     */
+    @Deprecated("Adapter instances are stored in instanceCaches.", ReplaceWith("this.unmodStrongCache"))
+    protected val strongCache: Map<Pair<AdapterSpecification<*, *>, Any>, Any>
+        get() = this.unmodStrongCache
 
     /**
      * Map that store all registered converters.
      */
-    protected val converterMap = mutableMapOf<Pair<Class<*>, Class<*>>, Converter<*, *>>()
+    protected val converterMap: MutableMap<Pair<Class<*>, Class<*>>, Converter<*, *>> =
+            if (this.isConcurrent) ConcurrentHashMap() else HashMap()
 
     /**
      * Immutable view of [converterMap]
@@ -153,7 +201,13 @@ open class AdapterManager {
     /**
      * AdapterManager dependent dynamic field storage, by default we use [WeakAdapteeStorage].
      */
-    val storage: Storage = WeakAdapteeStorage()
+    val storage: Storage = if (this.isConcurrent) SynchronizedStorage(WeakAdapteeStorage()) else WeakAdapteeStorage()
+
+    /**
+     * Scope of classes generated by [registerFromInterface], generated classes are unloaded once this
+     * manager (and all other managers sharing the scope) is no longer referenced.
+     */
+    val generationScope: GenerationScope by lazy { generationScope ?: GenerationScope() }
 
     /**
      * Registers [adapterSpecification].
@@ -161,18 +215,97 @@ open class AdapterManager {
     fun <E : Any> register(adapterSpecification: AdapterSpecification<E, out Any>) {
         Objects.requireNonNull(adapterSpecification)
 
-        this.adapterSpecificationSet.add(adapterSpecification)
+        synchronized(this.registryLock) {
+            val registry = this.registry
+
+            if (registry.specifications.contains(adapterSpecification))
+                return
+
+            val adapteeClass = adapterSpecification.adapteeClass
+            val specifications = LinkedHashSet(registry.specifications)
+            val adapteeIndex = HashMap(registry.adapteeIndex)
+
+            specifications += adapterSpecification
+            adapteeIndex[adapteeClass] = adapteeIndex[adapteeClass].orEmpty() + adapterSpecification
+
+            this.registry = Registry(Collections.unmodifiableSet(specifications), adapteeIndex)
+        }
+    }
+
+    /**
+     * Registers the specification of [adapterInterface] implementation generated in [generationScope]
+     * (see [AdapterSpecification.createFromInterface]) and returns registered specification.
+     */
+    fun <E : Any, T : Any> registerFromInterface(adapterInterface: Class<out T>,
+                                                 adapterClass: Class<T>,
+                                                 adapteeClass: Class<E>): AdapterSpecification<E, T> =
+            AdapterSpecification.createFromInterface(adapterInterface, adapterClass, adapteeClass, this.generationScope)
+                    .also { this.register(it) }
+
+    /**
+     * Registers the specification of [adapterInterface] implementation that is lazily generated in [generationScope]
+     * on first adaptation (see [AdapterSpecification.createLazyFromInterface]) and returns registered specification.
+     */
+    fun <E : Any, T : Any> registerLazyFromInterface(adapterInterface: Class<out T>,
+                                                     adapterClass: Class<T>,
+                                                     adapteeClass: Class<E>): AdapterSpecification<E, T> =
+            AdapterSpecification.createLazyFromInterface(adapterInterface, adapterClass, adapteeClass, this.generationScope)
+                    .also { this.register(it) }
+
+    /**
+     * Registers specifications of all adapters [pregenerated][PregeneratedAdapters] (ahead-of-time) visible
+     * to [loader]. In [ClosedWorld] mode, this is the way to register adapter interfaces.
+     */
+    @Suppress("UNCHECKED_CAST")
+    @JvmOverloads
+    fun registerPregenerated(loader: ClassLoader = AdapterManager::class.java.classLoader) {
+        PregeneratedAdapters.entries(loader).forEach {
+            this.register(AdapterSpecification.createFromInterface(
+                    Class.forName(it.adapterInterface, false, loader) as Class<out Any>,
+                    Class.forName(it.adapterClass, false, loader) as Class<Any>,
+                    Class.forName(it.adapteeClass, false, loader) as Class<Any>))
+        }
     }
 
     /**
-     * Unregisters [adapterSpecification]
+     * Unregisters [adapterSpecification] and removes all adapter instances cached by it.
      */
     fun unregister(adapterSpecification: AdapterSpecification<*, *>) {
         Objects.requireNonNull(adapterSpecification)
 
-        this.adapterSpecificationSet.remove(adapterSpecification)
+        synchronized(this.registryLock) {
+            val registry = this.registry
+
+            if (!registry.specifications.contains(adapterSpecification))
+                return
+
+            val adapteeClass = adapterSpecification.adapteeClass
+            val specifications = LinkedHashSet(registry.specifications)
+            val adapteeIndex = HashMap(registry.adapteeIndex)
+
+            specifications -= adapterSpecification
+
+            val remaining = adapteeIndex[adapteeClass].orEmpty() - adapterSpecification
+
+            if (remaining.isEmpty())
+                adapteeIndex.remove(adapteeClass)
+            else
+                adapteeIndex[adapteeClass] = remaining
+
+            this.registry = Registry(Collections.unmodifiableSet(specifications), adapteeIndex)
+        }
+
+        // Strong cached adapters are uncached through the cache, so they are also removed from strongCacheIndex.
+        this.instanceCaches.remove(adapterSpecification)?.clearStrong()
     }
 
+    /**
+     * Gets all registered specifications which [AdapterSpecification.adapteeClass] is exactly [adaptee],
+     * in registration order.
+     */
+    fun getSpecifications(adaptee: Class<*>): List<AdapterSpecification<*, *>> =
+            this.registry.adapteeIndex[adaptee].orEmpty()
+
     /**
      * Registers [converter] that converts [from] type [I] [to] type [O].
      */
@@ -195,14 +328,10 @@ open class AdapterManager {
 
         val map = this.converterMap
 
-        if (map.containsKey(pair)) {
-            val converter = map[pair]!!
+        val converter = map.remove(pair)
 
-            map.remove(pair)
-
-            if (converter.revert() != null) {
-                map.remove(Pair.of<Class<*>, Class<*>>(to, from))
-            }
+        if (converter != null && converter.revert() != null) {
+            map.remove(Pair.of<Class<*>, Class<*>>(to, from))
         }
     }
 
@@ -237,82 +366,78 @@ open class AdapterManager {
 
     /**
      * Adapts [instance] of [adaptee] type [E] to an instance assignable [toClasses].
+     *
+     * Like other methods that returns [Optional], allocates the returned [Optional] even if the adapter
+     * instance is cached, unchecked variants (such as [adaptUnchecked]) do not allocate on cache hits.
      */
-    @Suppress("UNCHECKED_CAST")
-    fun <E : Any> adaptSingleAsAny(adaptee: Class<in E>, instance: E, toClasses: Array<Class<*>>?): Optional<Any> {
-        var toClasses = toClasses
-
-        if (toClasses == null)
-            toClasses = emptyArray()
+    fun <E : Any> adaptSingleAsAny(adaptee: Class<in E>, instance: E, toClasses: Array<Class<*>>?): Optional<Any> =
+            Optional.ofNullable(this.adaptOrNull(adaptee, instance, toClasses ?: emptyArray<Class<*>>()))
 
+    /**
+     * Adapts [instance] of [adaptee] type [E] to an instance assignable [toClasses], or returns null if there is no
+     * specification that adapts it. Does not allocate if the adapter instance is cached.
+     */
+    @Suppress("UNCHECKED_CAST")
+    private fun <E : Any> adaptOrNull(adaptee: Class<in E>, instance: E, toClasses: Array<Class<*>>): Any? {
         // Gets the specification of Adapter that adapts 'adaptee' to 'toClasses'
         val adapterSpecificationOpt = this[adaptee, toClasses]
 
-        // Check if is no one specification was found
-        if (!adapterSpecificationOpt.isPresent) {
-
-            // Check if instance if adapter base
-            if (instance is AdapterBase<*>) {
-                // Gets original instance/adapted instance
-                val origin = instance.originalInstance
-
-                // If target classes is empty or original instance is instance of all types
-                if (toClasses.isEmpty() || toClasses.all { it.isInstance(origin) })
-                // Returns original instance.
-                    return Optional.of(origin)
-            }
-
-            // Returns empty
-            return Optional.empty()
-        }
+        if (adapterSpecificationOpt.isPresent)
+            return this.adaptSingleAsAnyUnchecked(instance, adapterSpecificationOpt.get() as AdapterSpecification<E, Any>)
 
-        return this.adaptSingleAsAny(instance, adapterSpecificationOpt.get() as AdapterSpecification<E, Any>)
+        // If instance is adapter base and target classes is empty or original instance is instance of all types,
+        // returns original instance.
+        return (instance as? AdapterBase<*>)?.originalInstance?.takeIf { origin -> toClasses.all { it.isInstance(origin) } }
     }
 
     /**
-     * Adapts [instance] based on [adapterSpecification].
+     * [adaptOrNull] to a single [toClass], without allocating the relation array if the specification
+     * was already resolved.
      */
     @Suppress("UNCHECKED_CAST")
-    fun <E : Any> adaptSingleAsAny(instance: E, adapterSpecification: AdapterSpecification<E, Any>): Optional<Any> {
-        // Gets the cache map
-        val cache = this.cache
+    private fun <E : Any> adaptOrNull(adaptee: Class<in E>, instance: E, toClass: Class<*>): Any? {
+        val adapterSpecificationOpt = this.getAssignable(adaptee, toClass)
 
-        // Gets the strong cache map
-        val strongCache = this.strongCache
+        if (adapterSpecificationOpt.isPresent)
+            return this.adaptSingleAsAnyUnchecked(instance, adapterSpecificationOpt.get() as AdapterSpecification<E, Any>)
 
-        // Create the pair representing the specification and instance to adapt
-        val pair = Pair.of<AdapterSpecification<*, *>, Any>(adapterSpecification, instance)
+        return (instance as? AdapterBase<*>)?.originalInstance?.takeIf { toClass.isInstance(it) }
+    }
 
-        // Gets cached instance
-        val cacheGet = cache[pair]
+    /**
+     * Adapts [instance] based on [adapterSpecification].
+     */
+    fun <E : Any> adaptSingleAsAny(instance: E, adapterSpecification: AdapterSpecification<E, Any>): Optional<Any> =
+            Optional.of(this.adaptSingleAsAnyUnchecked(instance, adapterSpecification))
 
-        // If not null, returns cached adapter instance.
-        if (cacheGet != null) {
-            return Optional.of(cacheGet as E)
-        }
+    /**
+     * Adapts [instance] based on [adapterSpecification]. Returns the cached adapter instance
+     * without allocating if present.
+     */
+    fun <E : Any> adaptSingleAsAnyUnchecked(instance: E, adapterSpecification: AdapterSpecification<E, Any>): Any {
+        // Gets the cache of adapters of the specification
+        val cache = this.instanceCaches[adapterSpecification] ?: this.createInstanceCache(adapterSpecification)
 
-        // Gets strong cached instance
-        val strongCacheGet = strongCache[pair]
+        // Gets cached instance (weak or strong)
+        val cached = cache[instance]
 
         // If not null, returns cached adapter instance.
-        if (strongCacheGet != null) {
-            return Optional.of(strongCacheGet as E)
-        }
+        if (cached != null)
+            return cached
 
-        // Create adapter instance;
-        val t = adapterSpecification.create(instance, this)
+        // Create adapter instance and cache it (according to cache policy of adapter),
+        // concurrent caches create it only once.
+        return cache.getOrCreate(instance, this)
+    }
 
-        // If should strong cache
-        if (adapterSpecification.strongCache(t)) {
-            // Strong cache the instance
-            strongCache[pair] = t
-        } else {
-            // Cache the instance
-            cache[pair] = t
-        }
+    /**
+     * Creates and registers the [SpecificationCache] of [adapterSpecification], or returns the cache registered
+     * concurrently by another thread.
+     */
+    private fun createInstanceCache(adapterSpecification: AdapterSpecification<*, *>): SpecificationCache {
+        val created = SpecificationCache(adapterSpecification, this.isConcurrent, this.strongCacheIndex)
 
-        // Returns the adapted instance.
-        return Optional.of(t)
+        return this.instanceCaches.putIfAbsent(adapterSpecification, created) ?: created
     }
 
     /**
@@ -328,7 +453,8 @@ open class AdapterManager {
      */
     @Suppress("UNCHECKED_CAST")
     fun <E : Any> adaptAsAny(adaptee: Class<in E>, instance: E, toClass: Class<*>?): Optional<Any> {
-        return this.adaptSingleAsAny(adaptee, instance, toClass?.let { arrayOf(it) } ?: emptyArray())
+        return Optional.ofNullable(if (toClass == null) this.adaptOrNull(adaptee, instance, emptyArray<Class<*>>())
+        else this.adaptOrNull(adaptee, instance, toClass))
     }
 
     /**
@@ -473,20 +599,25 @@ open class AdapterManager {
      */
     @Suppress("UNCHECKED_CAST")
     fun <E : Any, O : Any> adaptBase(adaptee: Class<in E>, instance: E, toClasses: Array<Class<*>>): Optional<O> {
-        return this.adaptSingleAsAny(adaptee, instance, toClasses).let {
-            if (!it.isPresent && adaptee != instance::class.java)
-                this.adaptSingleAsAny(instance::class.java as Class<in E>, instance, toClasses)
-            else
-                it
-        } as Optional<O>
+        return Optional.ofNullable(this.adaptBaseOrNull(adaptee, instance, toClasses) as O?)
     }
 
+    /**
+     * Adapts [instance] with [adaptOrNull] using [adaptee] type, or using the type of [instance] if there is
+     * no specification of [adaptee].
+     */
+    @Suppress("UNCHECKED_CAST")
+    private fun <E : Any> adaptBaseOrNull(adaptee: Class<in E>, instance: E, toClasses: Array<Class<*>>): Any? =
+            this.adaptOrNull(adaptee, instance, toClasses)
+                    ?: if (adaptee != instance::class.java) this.adaptOrNull(instance::class.java as Class<in E>, instance, toClasses)
+                    else null
+
     /**
      * See [AdapterManager]
      */
     @Suppress("UNCHECKED_CAST")
     fun <E : Any, O : Any> adapt(adaptee: Class<in E>, instance: E, toClasses: Array<Class<*>>): Optional<O> {
-        return this.adaptSingleAsAny(adaptee, instance, toClasses) as Optional<O>
+        return Optional.ofNullable(this.adaptOrNull(adaptee, instance, toClasses) as O?)
     }
 
     /**
@@ -494,7 +625,7 @@ open class AdapterManager {
      */
     @Suppress("UNCHECKED_CAST")
     fun <E : Any, O : Any> adapt(adaptee: Class<in E>, instance: E, toClass: Class<O>): Optional<O> {
-        return this.adaptSingleAsAny(adaptee, instance, arrayOf<Class<*>>(toClass)) as Optional<O>
+        return Optional.ofNullable(this.adaptOrNull(adaptee, instance, toClass) as O?)
     }
 
     /**
@@ -502,14 +633,16 @@ open class AdapterManager {
      */
     @Suppress("UNCHECKED_CAST")
     fun <E : Any, O : Any> adaptBaseUnchecked(adaptee: Class<in E>, instance: E, toClasses: Array<Class<*>>): O {
-        return Require.require(this.adaptBase(adaptee, instance, toClasses), "Can't find adapter of '$adaptee' (and of '${instance::class.java}') to '${toClasses.contentToString()}'!")
+        return this.adaptBaseOrNull(adaptee, instance, toClasses) as O?
+                ?: Require.require(Optional.empty<O>(), "Can't find adapter of '$adaptee' (and of '${instance::class.java}') to '${toClasses.contentToString()}'!")
     }
 
     /**
      * See [AdapterManager]
      */
     fun <E : Any, O : Any> adaptUnchecked(adaptee: Class<in E>, instance: E, toClass: Class<O>): O {
-        return Require.require(this.adapt(adaptee, instance, toClass), "Can't find adapter of '$adaptee' to '$toClass'!")
+        return this.adaptOrNull(adaptee, instance, toClass) as O?
+                ?: Require.require(Optional.empty<O>(), "Can't find adapter of '$adaptee' to '$toClass'!")
     }
 
     /**
@@ -517,21 +650,30 @@ open class AdapterManager {
      */
     @Suppress("UNCHECKED_CAST")
     fun <E : Any, O : Any> adaptUnchecked(adaptee: Class<in E>, instance: E, toClasses: Array<Class<*>>): O {
-        return Require.require(this.adapt(adaptee, instance, toClasses), "Can't find adapter of '" + adaptee + "' to '" + Arrays.toString(toClasses) + "'!")
+        return this.adaptOrNull(adaptee, instance, toClasses) as O?
+                ?: Require.require(Optional.empty<O>(), "Can't find adapter of '" + adaptee + "' to '" + Arrays.toString(toClasses) + "'!")
     }
 
     /**
-     * Cleanup [Adapter Instance Cache][cache].
+     * Prepares a [PreparedAdapter] that adapts instances of [adaptee] to [toClass]. The specification is resolved
+     * once (and again only when specifications are registered or unregistered), so adapting through the handle
+     * only probes the instance cache.
+     */
+    fun <E : Any, O : Any> prepare(adaptee: Class<in E>, toClass: Class<O>): PreparedAdapter<E, O> =
+            PreparedAdapter(adaptee, toClass)
+
+    /**
+     * Cleanup [Adapter Instance Cache][instanceCaches] (weak cached instances).
      */
     fun cleanupInstanceCache() {
-        this.cache.clear()
+        this.instanceCaches.values.forEach { it.clearWeak() }
     }
 
     /**
-     * Cleanup [Strong Adapter Instance Cache][cache].
+     * Cleanup [Strong Adapter Instance Cache][instanceCaches] (strong cached instances).
      */
     fun cleanupStrongInstanceCache() {
-        this.strongCache.clear()
+        this.instanceCaches.values.forEach { it.clearStrong() }
     }
 
     /**
@@ -539,14 +681,37 @@ open class AdapterManager {
      * and returns remove adapter instance, or null if not present.
      */
     fun uncacheStrong(adapteeInstance: Any, specification: AdapterSpecification<*, *>): Any? =
-            this.strongCache.remove(Pair.of(specification, adapteeInstance))
+            this.instanceCaches[specification]?.removeStrong(adapteeInstance)
 
     /**
      * Removes all strong cache entry associated to [adapteeInstance] regardless the adapter,
      * and returns true if any value was removed as result of this operation.
      */
-    fun uncacheAllStrong(adapteeInstance: Any): Boolean
-            = this.strongCache.entries.removeIf { it.key.second == adapteeInstance }
+    fun uncacheAllStrong(adapteeInstance: Any): Boolean {
+        var removed = false
+
+        this.strongCacheIndex.cachesOf(adapteeInstance).forEach {
+            if (it.removeStrong(adapteeInstance) != null)
+                removed = true
+        }
+
+        return removed
+    }
+
+    /**
+     * Removes all strong cache entries associated to each instance of [adapteeInstances] regardless the adapter,
+     * and returns true if any value was removed as result of this operation.
+     */
+    fun uncacheAllStrongOf(adapteeInstances: Iterable<Any>): Boolean {
+        var removed = false
+
+        adapteeInstances.forEach {
+            if (this.uncacheAllStrong(it))
+                removed = true
+        }
+
+        return removed
+    }
 
 
     /**
@@ -610,20 +775,24 @@ open class AdapterManager {
     /**
      * See [AdapterManager]
      */
-    fun getExact(adaptee: Class<*>, relation: Array<Class<*>>): Optional<AdapterSpecification<*, *>> {
-
-        return Optional.ofNullable(this.adapterSpecificationSet
-                .firstOrNull { adapterSpecification ->
+    fun getExact(adaptee: Class<*>, relation: Array<Class<*>>): Optional<AdapterSpecification<*, *>> =
+            this.getExact(this.registry, adaptee, relation)
 
-                    if (adapterSpecification.adapteeClass != adaptee)
-                        return@firstOrNull false
+    /**
+     * Gets the specification of [adaptee] that matches [relation] registered in [registry].
+     */
+    private fun getExact(registry: Registry, adaptee: Class<*>, relation: Array<Class<*>>): Optional<AdapterSpecification<*, *>> {
+        // Only specifications of 'adaptee' are candidates
+        val specifications = registry.adapteeIndex[adaptee] ?: return Optional.empty()
 
-                    if (relation.isEmpty())
-                        return@firstOrNull true
+        if (relation.isEmpty())
+            return Optional.ofNullable(specifications.firstOrNull())
 
+        return Optional.ofNullable(specifications
+                .firstOrNull { adapterSpecification ->
                     val adapterClass = adapterSpecification.adapterClass
 
-                    return@firstOrNull !relation.any { !it.isAssignableFrom(adapterClass) }
+                    return@firstOrNull relation.all { it.isAssignableFrom(adapterClass) }
                 })
 
     }
@@ -635,20 +804,140 @@ open class AdapterManager {
         Objects.requireNonNull(adaptee)
         Objects.requireNonNull(relation)
 
-        val sortedSuperTypes = ClassUtil.getSortedSuperTypes(adaptee).iterator()
+        val registry = this.registry
+
+        val resolutions = registry.resolutions.get(adaptee)
 
-        var exact = this.getExact(adaptee, relation)
+        for (resolution in resolutions.get()) {
+            if (Arrays.equals(resolution.relation, relation))
+                return resolution.specification
+        }
+
+        val resolved = this.resolveAssignable(registry, adaptee, relation)
+        val resolution = Resolution(relation.clone(), resolved)
+
+        resolutions.updateAndGet { it + resolution }
+
+        return resolved
+    }
+
+    /**
+     * [getAssignable] for a single relation class, without allocating the relation array if the resolution
+     * is cached.
+     */
+    private fun getAssignable(adaptee: Class<*>, toClass: Class<*>): Optional<AdapterSpecification<*, *>> {
+        for (resolution in this.registry.resolutions.get(adaptee).get()) {
+            val relation = resolution.relation
+
+            if (relation.size == 1 && relation[0] == toClass)
+                return resolution.specification
+        }
+
+        return this.getAssignable(adaptee, arrayOf(toClass))
+    }
+
+    /**
+     * Resolves the specification of [adaptee] walking through the hierarchy (without looking up
+     * [Registry.resolutions]).
+     */
+    private fun resolveAssignable(registry: Registry,
+                                  adaptee: Class<*>,
+                                  relation: Array<Class<*>>): Optional<AdapterSpecification<*, *>> {
+        var exact = this.getExact(registry, adaptee, relation)
 
         if (exact.isPresent)
             return exact
 
+        val sortedSuperTypes = ClassUtil.getSortedSuperTypes(adaptee).iterator()
+
         while (!exact.isPresent && sortedSuperTypes.hasNext()) {
-            exact = this.getExact(sortedSuperTypes.next(), relation)
+            exact = this.getExact(registry, sortedSuperTypes.next(), relation)
         }
 
         return exact
     }
 
+    /**
+     * Handle that adapts instances of [adaptee] to [toClass] using the [AdapterSpecification] resolved
+     * for the current [registry], see [prepare].
+     *
+     * @property adaptee Adaptee type.
+     * @property toClass Target type.
+     */
+    inner class PreparedAdapter<in E : Any, out O : Any> internal constructor(val adaptee: Class<in E>,
+                                                                               val toClass: Class<out O>) {
+
+        @Volatile
+        private var binding: Binding = this.bind()
+
+        /**
+         * Current resolved specification, or null if there is no specification that adapts [adaptee] to [toClass].
+         */
+        val specification: AdapterSpecification<*, *>?
+            get() = this.currentBinding().cache?.specification
+
+        /**
+         * Adapts [instance] to [toClass]. If not found, throws an exception.
+         */
+        @Suppress("UNCHECKED_CAST")
+        fun adapt(instance: E): O {
+            val cache = this.currentBinding().cache
+                    ?: return this@AdapterManager.adaptUnchecked(this.adaptee, instance, this.toClass)
+
+            return (cache[instance] ?: cache.getOrCreate(instance, this@AdapterManager)) as O
+        }
+
+        private fun currentBinding(): Binding {
+            val binding = this.binding
+
+            if (binding.registry === this@AdapterManager.registry)
+                return binding
+
+            return this.bind().also { this.binding = it }
+        }
+
+        private fun bind(): Binding {
+            val registry = this@AdapterManager.registry
+            val specification = this@AdapterManager.getAssignable(this.adaptee, arrayOf(this.toClass))
+
+            return Binding(registry, specification.map {
+                this@AdapterManager.instanceCaches[it] ?: this@AdapterManager.createInstanceCache(it)
+            }.orElse(null))
+        }
+    }
+
+    /**
+     * [cache] of the specification resolved in [registry] snapshot (null if none was resolved).
+     */
+    private class Binding(val registry: Registry, val cache: SpecificationCache?)
+
+    /**
+     * Immutable snapshot of registered specifications.
+     *
+     * @property specifications Registered specifications.
+     * @property adapteeIndex Registered specifications by [AdapterSpecification.adapteeClass], specifications
+     * of same adaptee class are kept in registration order.
+     */
+    protected class Registry(val specifications: Set<AdapterSpecification<*, *>>,
+                             val adapteeIndex: Map<Class<*>, List<AdapterSpecification<*, *>>>) {
+
+        /**
+         * Cache of [getAssignable] resolutions (found and not found) by adaptee class, discarded with
+         * the snapshot when a specification is registered or unregistered. [ClassValue] does not prevent
+         * adaptee classes from being unloaded.
+         */
+        val resolutions = object : ClassValue<AtomicReference<Array<Resolution>>>() {
+            override fun computeValue(type: Class<*>): AtomicReference<Array<Resolution>> =
+                    AtomicReference(emptyArray<Resolution>())
+        }
+    }
+
+    /**
+     * Cached result of [getAssignable] for [relation].
+     */
+    protected class Resolution(val relation: Array<Class<*>>,
+                               val specification: Optional<AdapterSpecification<*, *>>)
+
     /**
      * Creates a [Builder] instance that allows a construction two way adapter helper instance ([Builder.FromTo]).
      */
@@ -713,6 +1002,16 @@ open class AdapterManager {
         fun create(): AdapterManager {
             return AdapterManager()
         }
+
+        /**
+         * Creates a instance of Adapter Manager that can be safely used by multiple threads.
+         *
+         * @return A new instance of concurrent Adapter Manager.
+         */
+        @JvmStatic
+        fun createConcurrent(): AdapterManager {
+            return AdapterManager(true)
+        }
     }
 
 
@@ -27,7 +27,10 @@
  */
 package com.github.jonathanxd.adapterhelper
 
+import com.github.jonathanxd.adapterhelper.implgen.AdapterFactories
 import com.github.jonathanxd.adapterhelper.implgen.AdapterImplGen
+import com.github.jonathanxd.adapterhelper.implgen.GenerationScope
+import com.github.jonathanxd.adapterhelper.implgen.PregeneratedAdapters
 import java.util.Objects
 
 /**
@@ -47,7 +50,8 @@ import java.util.Objects
  * If you forget to implement a required method (those that the body is not generated by generator),
  * a runtime exception will be thrown.
  *
- * Attention: A new class is generated for every call to [createFromInterface].
+ * The class is generated only once for each adapter interface, adaptee class and additional handlers,
+ * subsequent calls to [createFromInterface] reuse the generated class.
  *
  * @property factory Adapter Instance Factory.
  * @property adapterClass Adapter class.
@@ -63,8 +67,12 @@ class AdapterSpecification<E : Any, T : Any> private constructor(
     /**
      * True if this adapter [instance] should be strong cached.
      */
-    fun strongCache(instance: T) = instance::class.java.hasExplicitOrImplicitAnnotation(StrongCache::class.java)
-            && !instance::class.java.hasExplicitOrImplicitAnnotation(ForceWeakCache::class.java)
+    fun strongCache(instance: T) = this.cachePolicy(instance).strong
+
+    /**
+     * Cache policy of adapter [instance], see [StrongCache].
+     */
+    fun cachePolicy(instance: T): CachePolicy = CachePolicy.of(instance::class.java)
 
     /**
      * Create the adapter class instance.
@@ -75,12 +83,17 @@ class AdapterSpecification<E : Any, T : Any> private constructor(
      */
     fun create(target: E, manager: AdapterManager): T = this.factory(target, manager)
 
-    override fun hashCode(): Int = Objects.hash(this.adapterClass, this.adapteeClass)
+    /**
+     * Precomputed [hashCode], specifications are used as cache keys in hot paths.
+     */
+    private val hash = Objects.hash(this.adapterClass, this.adapteeClass)
+
+    override fun hashCode(): Int = this.hash
 
     @Suppress("UNCHECKED_CAST")
     override fun equals(other: Any?): Boolean {
 
-        return !(other == null || other.javaClass != AdapterSpecification::class.java)
+        return other === this || !(other == null || other.javaClass != AdapterSpecification::class.java)
                 && this.adapterClass == (other as AdapterSpecification<E, T>).adapterClass
                 && this.adapteeClass == other.adapteeClass
 
@@ -119,7 +132,12 @@ class AdapterSpecification<E : Any, T : Any> private constructor(
         /**
          * Creates an adapter specification using [AdapterImplGen] to create adapter class.
          *
-         * Requires Kores, Kores-BytecodeWriter and CodeGenUtil
+         * Requires Kores, Kores-BytecodeWriter and CodeGenUtil, unless the implementation was pregenerated
+         * (see [com.github.jonathanxd.adapterhelper.implgen.Pregenerate]).
+         *
+         * The generated class is defined in the [global scope][AdapterImplGen.globalScope], which is never unloaded.
+         * Use the overload that receives a [GenerationScope] (or [AdapterManager.registerFromInterface]) to define
+         * unloadable classes.
          *
          * @param adapterInterface Interface that adapts [adapteeClass], this interface should contains default methods
          * that overrides [adapterClass] methods. Methods of [Adapter] and [AdapterBase] classes are override by generator,
@@ -131,21 +149,44 @@ class AdapterSpecification<E : Any, T : Any> private constructor(
         @JvmStatic
         fun <E : Any, T : Any> createFromInterface(adapterInterface: Class<out T>,
                                                    adapterClass: Class<T>, adapteeClass: Class<E>): AdapterSpecification<E, T> {
-            val ctr = AdapterImplGen.genImpl(adapterInterface, adapteeClass)
-                    .getDeclaredConstructor(adapteeClass, AdapterManager::class.java)
+            val implClass = implementationOf(adapterInterface, adapteeClass)
 
-            // Don't call createFromInterface variable to keep `ctr` cached out of factory scope.
+            // Factory directly linked to generated constructor (no reflection).
+            return create(AdapterFactories.create(implClass, adapteeClass), adapterClass, adapteeClass)
+        }
 
-            return create({ e, manager ->
-                @Suppress("UNCHECKED_CAST")
-                ctr.newInstance(e, manager)
-            }, adapterClass, adapteeClass)
+        /**
+         * Creates an adapter specification using [AdapterImplGen] to create adapter class, the class is defined
+         * in [scope] and can be unloaded along with it (see [GenerationScope]).
+         *
+         * Requires Kores, Kores-BytecodeWriter and CodeGenUtil, unless the implementation was pregenerated
+         * (see [com.github.jonathanxd.adapterhelper.implgen.Pregenerate]).
+         *
+         * @param adapterInterface Interface that adapts [adapteeClass], this interface should contains default methods
+         * that overrides [adapterClass] methods. Methods of [Adapter] and [AdapterBase] classes are override by generator,
+         * so there is no need to override them in the [adapterInterface].
+         * @param adapterClass Adapter that defines the adapt standard.
+         * @param adapteeClass Adapted class
+         * @param scope Scope to define generated class.
+         * @return Specification.
+         */
+        @JvmStatic
+        fun <E : Any, T : Any> createFromInterface(adapterInterface: Class<out T>,
+                                                   adapterClass: Class<T>,
+                                                   adapteeClass: Class<E>,
+                                                   scope: GenerationScope): AdapterSpecification<E, T> {
+            val implClass = implementationOf(adapterInterface, adapteeClass, scope)
+
+            return create(AdapterFactories.create(implClass, adapteeClass), adapterClass, adapteeClass)
         }
 
         /**
          * Creates an adapter specification using [AdapterImplGen] to create adapter class.
          *
-         * Requires Kores, Kores-BytecodeWriter and CodeGenUtil
+         * Requires Kores, Kores-BytecodeWriter and CodeGenUtil, unless the implementation was pregenerated
+         * (see [com.github.jonathanxd.adapterhelper.implgen.Pregenerate]).
+         *
+         * The generated class is defined in the [global scope][AdapterImplGen.globalScope], which is never unloaded.
          *
          * @param adapterInterface Interface that adapts [adapteeClass], this interface should contains default methods
          * that overrides [adapterClass] methods. Methods of [Adapter] and [AdapterBase] classes are override by generator,
@@ -160,13 +201,73 @@ class AdapterSpecification<E : Any, T : Any> private constructor(
                                                    adapterClass: Class<T>,
                                                    adapteeClass: Class<E>,
                                                    factory: (genClass: Class<*>, e: E, manager: AdapterManager) -> T): AdapterSpecification<E, T> {
-            val klass = AdapterImplGen.genImpl(adapterInterface, adapteeClass)
+            val klass = implementationOf(adapterInterface, adapteeClass)
 
             return create({ e, manager ->
                 factory(klass, e, manager)
             }, adapterClass, adapteeClass)
         }
 
+        /**
+         * Creates an adapter specification like [createFromInterface], but the implementation of [adapterInterface]
+         * is only resolved (generated or loaded) when the first adapter instance is created, so specifications
+         * of adapters that are never used cost nothing. Generation failures are also deferred to the first use.
+         *
+         * In [ClosedWorld] mode nothing is generated, so the pregenerated implementation is resolved immediately
+         * and a missing implementation fails when the specification is created (as in [createFromInterface]).
+         *
+         * @param adapterInterface Interface that adapts [adapteeClass] (see [createFromInterface]).
+         * @param adapterClass Adapter that defines the adapt standard.
+         * @param adapteeClass Adapted class
+         * @param scope Scope to define generated class, or `null` to define in the global scope.
+         * @return Specification.
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun <E : Any, T : Any> createLazyFromInterface(adapterInterface: Class<out T>,
+                                                       adapterClass: Class<T>,
+                                                       adapteeClass: Class<E>,
+                                                       scope: GenerationScope? = null): AdapterSpecification<E, T> {
+            // Only the runtime generation is deferred.
+            if (ClosedWorld.isClosedWorld())
+                return create(AdapterFactories.create(implementationOf(adapterInterface, adapteeClass, scope), adapteeClass),
+                        adapterClass, adapteeClass)
+
+            return create(LazyFactory {
+                AdapterFactories.create(implementationOf(adapterInterface, adapteeClass, scope), adapteeClass)
+            }, adapterClass, adapteeClass)
+        }
+
+        /**
+         * Gets the [pregenerated][PregeneratedAdapters] implementation of [adapterInterface], or generates it
+         * in [scope] (or in the global scope if `null`) using [AdapterImplGen] (Kores is only required when
+         * the implementation is not pregenerated).
+         *
+         * @throws IllegalStateException If the implementation was not pregenerated in [ClosedWorld] mode.
+         */
+        @Suppress("UNCHECKED_CAST")
+        private fun <T : Any> implementationOf(adapterInterface: Class<out T>, adapteeClass: Class<*>,
+                                               scope: GenerationScope? = null): Class<out T> {
+            PregeneratedAdapters.find(adapterInterface, adapteeClass)?.let {
+                return it as Class<out T>
+            }
+
+            if (ClosedWorld.isClosedWorld())
+                throw IllegalStateException("Implementation of '$adapterInterface' for '$adapteeClass' was not pregenerated " +
+                        "(runtime generation is disabled by '${ClosedWorld.CLOSED_WORLD}').")
+
+            return (scope ?: AdapterImplGen.globalScope).genImpl(adapterInterface, adapteeClass)
+        }
+
+        /**
+         * Factory that creates the [factory][initializer] of instances on first call, thread-safely.
+         */
+        private class LazyFactory<E : Any, T : Any>(initializer: () -> (E, AdapterManager) -> T) : (E, AdapterManager) -> T {
+            private val factory by lazy(initializer)
+
+            override fun invoke(e: E, manager: AdapterManager): T = this.factory(e, manager)
+        }
+
         /**
          * Create adapter specification.
          *
@@ -0,0 +1,119 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper
+
+/**
+ * Policy of adapter instance caching, resolved from [StrongCache] and [ForceWeakCache] annotations of
+ * adapter class.
+ *
+ * @property strong Whether adapters are strong cached.
+ * @property maximumSize Maximum amount of strong cached adapters per [AdapterSpecification] (negative for unbounded).
+ * @property eviction Policy used to choose the adapter to evict when [maximumSize] is exceeded.
+ * @property expireAfterAccessNanos Nanoseconds that strong cached adapters are kept after last access
+ * (negative for no expiration).
+ */
+class CachePolicy(val strong: Boolean,
+                  val maximumSize: Long,
+                  val eviction: EvictionPolicy,
+                  val expireAfterAccessNanos: Long) {
+
+    /**
+     * True if strong cached adapters may be evicted or expire.
+     */
+    val isBounded: Boolean
+        get() = this.strong && (this.maximumSize >= 0 || this.expireAfterAccessNanos >= 0)
+
+    /**
+     * True if strong cached adapters expire after [expireAfterAccessNanos].
+     */
+    val expires: Boolean
+        get() = this.expireAfterAccessNanos >= 0
+
+    companion object {
+        /**
+         * Weak cache policy.
+         */
+        @JvmField
+        val WEAK = CachePolicy(false, -1, EvictionPolicy.LRU, -1)
+
+        /**
+         * Unbounded strong cache policy.
+         */
+        @JvmField
+        val STRONG = CachePolicy(true, -1, EvictionPolicy.LRU, -1)
+
+        /**
+         * Creates the policy specified by [strongCache]. Throws if [StrongCache.maximumSize] is `0`.
+         */
+        @JvmStatic
+        fun of(strongCache: StrongCache): CachePolicy {
+            if (strongCache.maximumSize == 0L)
+                throw IllegalArgumentException("Maximum size of strong cache must be positive (or negative " +
+                        "for unbounded), the adapter being cached is never evicted.")
+
+            if (strongCache.maximumSize < 0 && strongCache.expireAfterAccess < 0)
+                return STRONG
+
+            return CachePolicy(true,
+                    strongCache.maximumSize,
+                    strongCache.eviction,
+                    if (strongCache.expireAfterAccess < 0) -1 else strongCache.timeUnit.toNanos(strongCache.expireAfterAccess))
+        }
+
+        /**
+         * Policies of adapter classes, resolved once per class.
+         */
+        private val POLICIES = object : ClassValue<CachePolicy>() {
+            override fun computeValue(type: Class<*>): CachePolicy = resolve(type)
+        }
+
+        /**
+         * Gets the policy of [adapterClass] based on explicit and implicit [StrongCache] and [ForceWeakCache]
+         * annotations. When multiple [StrongCache] annotations are present, the first bounded one is used.
+         *
+         * The policy is resolved only once per class.
+         */
+        @JvmStatic
+        fun of(adapterClass: Class<*>): CachePolicy = POLICIES.get(adapterClass)
+
+        private fun resolve(adapterClass: Class<*>): CachePolicy {
+            val annotations = adapterClass.getExplicitAndImplicitAnnotations()
+
+            if (annotations.any { it is ForceWeakCache })
+                return WEAK
+
+            val strongCaches = annotations.filterIsInstance<StrongCache>()
+
+            if (strongCaches.isEmpty())
+                return WEAK
+
+            return of(strongCaches.firstOrNull { it.maximumSize >= 0 || it.expireAfterAccess >= 0 }
+                    ?: strongCaches.first())
+        }
+    }
+}
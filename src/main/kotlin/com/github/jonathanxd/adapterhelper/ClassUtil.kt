@@ -30,40 +30,85 @@ package com.github.jonathanxd.adapterhelper
 import com.github.jonathanxd.adapterhelper.wrapper.func.TypeResolverFunc
 import com.github.jonathanxd.iutils.reflection.ClassUtil
 import java.lang.reflect.AnnotatedElement
+import java.util.*
 
-fun Class<*>.getExplicitAndImplicitAnnotations(): Set<Annotation> {
-    return mutableSetOf<Annotation>().also {
-        this.getExplicitAndImplicitAnnotations(it)
-    }
+/**
+ * Explicit and implicit annotations of a class and the set of their types.
+ */
+private class AnnotationClosure(val annotations: Set<Annotation>) {
+    val types: Set<Class<out Annotation>> = this.annotations.mapTo(HashSet()) { it.annotationClass.java }
+}
+
+/**
+ * Annotation closures of classes, computed only once per class. [ClassValue] does not prevent the class
+ * from being unloaded.
+ */
+private val ANNOTATION_CLOSURES = object : ClassValue<AnnotationClosure>() {
+    override fun computeValue(type: Class<*>): AnnotationClosure =
+            AnnotationClosure(Collections.unmodifiableSet(LinkedHashSet<Annotation>().also {
+                type.collectExplicitAndImplicitAnnotations(it)
+            }))
 }
 
+/**
+ * Gets all annotations present in this class, its super types and recursively in the annotation types
+ * of these annotations.
+ *
+ * The result is cached per class.
+ */
+fun Class<*>.getExplicitAndImplicitAnnotations(): Set<Annotation> =
+        ANNOTATION_CLOSURES.get(this).annotations
+
+/**
+ * Gets all annotations present in this element and recursively in the annotation types of these annotations.
+ */
 fun AnnotatedElement.getExplicitAndImplicitAnnotations(): Set<Annotation> {
-    return mutableSetOf<Annotation>().also {
-        this.getExplicitAndImplicitAnnotations(it)
+    return mutableSetOf<Annotation>().also { set ->
+        this.annotations.forEach {
+            if (set.add(it))
+                set.addAll(it.annotationClass.java.getExplicitAndImplicitAnnotations())
+        }
     }
 }
 
-private fun Class<*>.getExplicitAndImplicitAnnotations(set: MutableSet<Annotation>) {
-    (this as AnnotatedElement).getExplicitAndImplicitAnnotations(set)
-    this.superclass?.getExplicitAndImplicitAnnotations(set)
-    this.interfaces.forEach { it.getExplicitAndImplicitAnnotations(set) }
+private fun Class<*>.collectExplicitAndImplicitAnnotations(set: MutableSet<Annotation>) {
+    (this as AnnotatedElement).collectExplicitAndImplicitAnnotations(set)
+    this.superclass?.collectExplicitAndImplicitAnnotations(set)
+    this.interfaces.forEach { it.collectExplicitAndImplicitAnnotations(set) }
 }
 
-private fun AnnotatedElement.getExplicitAndImplicitAnnotations(set: MutableSet<Annotation>) {
+private fun AnnotatedElement.collectExplicitAndImplicitAnnotations(set: MutableSet<Annotation>) {
     this.annotations.forEach {
         if (!set.contains(it)) {
             set += it
-            it.annotationClass.java.getExplicitAndImplicitAnnotations(set)
+            it.annotationClass.java.collectExplicitAndImplicitAnnotations(set)
         }
     }
 }
 
+/**
+ * Returns true if an annotation of [type] is present in [explicit and implicit annotations][getExplicitAndImplicitAnnotations]
+ * of this class.
+ */
 fun Class<*>.hasExplicitOrImplicitAnnotation(type: Class<out Annotation>): Boolean =
-        this.getExplicitAndImplicitAnnotations().any { it.annotationClass.java == type }
-
+        ANNOTATION_CLOSURES.get(this).types.contains(type)
 
+/**
+ * Returns true if an annotation of [type] is present in [explicit and implicit annotations][getExplicitAndImplicitAnnotations]
+ * of this element.
+ */
 fun AnnotatedElement.hasExplicitOrImplicitAnnotation(type: Class<out Annotation>): Boolean =
-        this.getExplicitAndImplicitAnnotations().any { it.annotationClass.java == type }
+        this.annotations.any {
+            it.annotationClass.java == type || it.annotationClass.java.hasExplicitOrImplicitAnnotation(type)
+        }
+
+/**
+ * Computes and caches [explicit and implicit annotations][getExplicitAndImplicitAnnotations] of all [classes],
+ * avoiding the cost of computing them later (for example, in the first adaptation).
+ */
+fun preloadExplicitAndImplicitAnnotations(classes: Iterable<Class<*>>) {
+    classes.forEach { ANNOTATION_CLOSURES.get(it) }
+}
 
 /**
  * Finds the correct exact type that an adapter exists to convert the type [to] to the
@@ -109,8 +154,8 @@ fun AdapterManager.getFirstValidTo(from: Class<*>, to: Class<*>): AdapterSpecifi
  */
 fun AdapterManager.getFirstValidTo(from: Class<*>, to: List<Class<*>>): AdapterSpecification<*, *>? {
     to.forEach {
-        this.unmodAdapterSpecificationSet.forEach { c ->
-            if (from.isAssignableFrom(c.adapterClass) && c.adapteeClass == it)
+        this.getSpecifications(it).forEach { c ->
+            if (from.isAssignableFrom(c.adapterClass))
                 return c
         }
     }
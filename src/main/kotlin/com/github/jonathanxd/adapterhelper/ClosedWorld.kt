@@ -0,0 +1,66 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper
+
+import com.github.jonathanxd.adapterhelper.implgen.PregeneratedAdapters
+import java.util.function.Supplier
+
+/**
+ * Closed-world mode: adapter implementations are only loaded from [pregenerated][PregeneratedAdapters] classes,
+ * classes are never generated nor defined at runtime, and missing implementations fail fast.
+ *
+ * The mode is enabled with `-Dadapterhelper.closedworld=true`, or only in the current thread with [runWith].
+ */
+object ClosedWorld {
+    const val CLOSED_WORLD = "adapterhelper.closedworld"
+
+    /**
+     * Mode of current thread set by [runWith], or `null` to use [CLOSED_WORLD] property.
+     */
+    private val override = ThreadLocal<Boolean?>()
+
+    @JvmStatic
+    fun isClosedWorld() = this.override.get() ?: System.getProperty(CLOSED_WORLD, "false")?.toBoolean() ?: false
+
+    /**
+     * Runs [block] with closed-world mode [enabled] in the current thread, regardless of [CLOSED_WORLD] property.
+     * Other threads are not affected, so tests that run concurrently in the same JVM do not see the mode.
+     */
+    @JvmStatic
+    fun <R> runWith(enabled: Boolean, block: Supplier<R>): R {
+        val previous = this.override.get()
+
+        this.override.set(enabled)
+
+        try {
+            return block.get()
+        } finally {
+            if (previous == null) this.override.remove() else this.override.set(previous)
+        }
+    }
+}
@@ -0,0 +1,635 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper
+
+import com.github.jonathanxd.iutils.`object`.Pair
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.util.IdentityHashMap
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Adapter instance cache of a single [AdapterSpecification].
+ *
+ * Adaptee instances are compared by identity, and weak and strong cached adapters are stored in the
+ * same table (weak cached adapters are wrapped in a [WeakReference]), so a cache hit requires only one
+ * lookup and does not allocate.
+ *
+ * A [concurrent] cache splits the table into [STRIPES] stripes (selected by adaptee identity hash), each one
+ * guarded by its own lock, so threads adapting different instances rarely contend. Adapters are created
+ * only once per adaptee: the first thread that misses the cache creates the adapter (without holding
+ * any lock) and other threads wait for it and receive the same instance. Creating an adapter that requires
+ * the adapter of the same adaptee (directly, or through adapters being created by other threads) throws
+ * [IllegalStateException] instead of recursing or waiting forever.
+ *
+ * Strong cached adapters with a bounded [CachePolicy] are additionally linked in access order, and evicted
+ * when [CachePolicy.maximumSize] is exceeded or expired when not accessed for [CachePolicy.expireAfterAccessNanos].
+ * The adapter being cached is never chosen as the victim of its own insertion. The [CachePolicy.maximumSize]
+ * applies to the whole cache: when the stripe of the new adapter has no other victim, adapters of other stripes
+ * are evicted (one stripe lock at a time), so the eviction order is only approximately LRU (or LFU) across stripes.
+ *
+ * @property specification Specification of cached adapters.
+ * @property concurrent Whether this cache is accessed by multiple threads.
+ * @property listener Listener notified when adapters are strong cached and uncached.
+ */
+class SpecificationCache @JvmOverloads constructor(val specification: AdapterSpecification<*, *>,
+                                                   val concurrent: Boolean = false,
+                                                   val listener: Listener? = null) {
+
+    private val stripes = (if (this.concurrent) STRIPES else 1).let { count -> Array(count) { Stripe() } }
+
+    /**
+     * Amount of bounded adapters in all stripes.
+     */
+    private val boundedCount = AtomicLong()
+
+    /**
+     * Next stripe to evict adapters from when the stripe of a new adapter has no other victim.
+     */
+    private val evictionCursor = AtomicInteger()
+
+    /**
+     * Gets cached adapter of [adaptee], or null if there is no adapter cached for [adaptee].
+     */
+    operator fun get(adaptee: Any): Any? =
+            this.stripeOf(adaptee).locked { this.get(adaptee) }
+
+    /**
+     * Gets cached adapter of [adaptee], or creates the adapter using [specification] and caches it
+     * according to [AdapterSpecification.cachePolicy].
+     */
+    fun getOrCreate(adaptee: Any, manager: AdapterManager): Any {
+        val stripe = this.stripeOf(adaptee)
+
+        while (true) {
+            val acquired = stripe.locked { this.acquire(adaptee) }
+
+            if (acquired !is PendingAdapter)
+                return acquired
+
+            if (acquired.owner !== Thread.currentThread()) {
+                // Wait the creation in other thread, or try again if it has failed.
+                acquired.await(adaptee)?.let { return it }
+                continue
+            }
+
+            val adapter = try {
+                this.create(adaptee, manager)
+            } catch (t: Throwable) {
+                stripe.locked { this.release(adaptee, acquired, null, CachePolicy.WEAK) }
+                acquired.complete(null)
+                throw t
+            }
+
+            val policy = this.cachePolicy(adapter)
+
+            stripe.locked { this.release(adaptee, acquired, adapter, policy) }
+            acquired.complete(adapter)
+            this.trim(policy, adapter)
+
+            return adapter
+        }
+    }
+
+    /**
+     * Caches the [adapter] of [adaptee] according to [policy].
+     */
+    fun put(adaptee: Any, adapter: Any, policy: CachePolicy) {
+        this.stripeOf(adaptee).locked { this.put(adaptee, adapter, policy) }
+        this.trim(policy, adapter)
+    }
+
+    /**
+     * Removes strong cached adapter of [adaptee] and returns it, or null if there is no adapter
+     * strong cached for [adaptee].
+     */
+    fun removeStrong(adaptee: Any): Any? =
+            this.stripeOf(adaptee).locked { this.removeStrong(adaptee) }
+
+    /**
+     * Removes all weak cached adapters.
+     */
+    fun clearWeak() {
+        this.stripes.forEach { it.locked { this.clearWeak() } }
+    }
+
+    /**
+     * Removes all strong cached adapters.
+     */
+    fun clearStrong() {
+        this.stripes.forEach { it.locked { this.clearStrong() } }
+    }
+
+    /**
+     * Copies all strong cached adapters (if [strong] is true) or all weak cached adapters (if [strong] is false)
+     * to [map] keyed by [Pair] of [specification] and adaptee.
+     */
+    fun copyTo(map: MutableMap<Pair<AdapterSpecification<*, *>, Any>, Any>, strong: Boolean) {
+        this.stripes.forEach {
+            it.locked { this.copyTo(map, strong, this@SpecificationCache.specification) }
+        }
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun create(adaptee: Any, manager: AdapterManager): Any =
+            (this.specification as AdapterSpecification<Any, Any>).create(adaptee, manager)
+
+    @Suppress("UNCHECKED_CAST")
+    private fun cachePolicy(adapter: Any): CachePolicy =
+            (this.specification as AdapterSpecification<Any, Any>).cachePolicy(adapter)
+
+    private fun stripeOf(adaptee: Any): Stripe {
+        val stripes = this.stripes
+
+        if (stripes.size == 1)
+            return stripes[0]
+
+        val hash = System.identityHashCode(adaptee)
+
+        return stripes[(hash xor (hash ushr 16)) and (stripes.size - 1)]
+    }
+
+    private inline fun <R> Stripe.locked(block: Stripe.() -> R): R =
+            if (this@SpecificationCache.concurrent) synchronized(this) { this.block() } else this.block()
+
+    /**
+     * Evicts bounded adapters of other stripes (locking one stripe at a time) while [CachePolicy.maximumSize]
+     * of [policy] is exceeded, without evicting the [fresh] adapter. Only needed for multiple stripes, a single
+     * stripe evicts all exceeding adapters when the new adapter is stored.
+     */
+    private fun trim(policy: CachePolicy, fresh: Any) {
+        if (this.stripes.size == 1 || !policy.isBounded || policy.maximumSize < 0)
+            return
+
+        var remaining = this.stripes.size
+
+        while (this.boundedCount.get() > policy.maximumSize && remaining-- > 0) {
+            val stripe = this.stripes[this.evictionCursor.getAndIncrement() and (this.stripes.size - 1)]
+
+            stripe.locked { this.evict(policy, fresh) }
+        }
+    }
+
+    /**
+     * Table of adaptee to adapter (or [WeakAdapter], [BoundedAdapter] and [PendingAdapter]).
+     */
+    private inner class Stripe {
+
+        private val table = IdentityHashMap<Any, Any>()
+
+        /**
+         * Queue of collected weak cached adapters.
+         */
+        private val queue = ReferenceQueue<Any>()
+
+        /**
+         * Least recently accessed bounded adapter.
+         */
+        private var head: BoundedAdapter? = null
+
+        /**
+         * Most recently accessed bounded adapter.
+         */
+        private var tail: BoundedAdapter? = null
+
+        /**
+         * Amount of bounded adapters of this stripe.
+         */
+        private var boundedCount: Long = 0
+
+        fun get(adaptee: Any): Any? {
+            val value = this.table[adaptee]
+
+            return when (value) {
+                is WeakAdapter -> value.get()
+                is BoundedAdapter -> this.access(value)
+                is PendingAdapter -> null
+                else -> value
+            }
+        }
+
+        /**
+         * Returns the cached adapter of [adaptee], the [PendingAdapter] of an adapter being created by other thread,
+         * or a new [PendingAdapter] owned by current thread (which is responsible to create the adapter).
+         */
+        fun acquire(adaptee: Any): Any {
+            val value = this.table[adaptee]
+
+            when (value) {
+                is PendingAdapter -> {
+                    if (value.owner === Thread.currentThread())
+                        throw IllegalStateException("Recursive creation of adapter of '$adaptee'.")
+
+                    return value
+                }
+                is WeakAdapter -> value.get()?.let { return it }
+                is BoundedAdapter -> this.access(value)?.let { return it }
+                null -> Unit
+                else -> return value
+            }
+
+            this.expunge()
+
+            return PendingAdapter().also { this.table[adaptee] = it }
+        }
+
+        /**
+         * Replaces [pending] by [adapter] cached according to [policy] (or removes [pending] if [adapter] is null).
+         */
+        fun release(adaptee: Any, pending: PendingAdapter, adapter: Any?, policy: CachePolicy) {
+            if (this.table[adaptee] !== pending)
+                return
+
+            if (adapter == null)
+                this.table.remove(adaptee)
+            else
+                this.store(adaptee, adapter, policy)
+        }
+
+        fun put(adaptee: Any, adapter: Any, policy: CachePolicy) {
+            this.expunge()
+            this.store(adaptee, adapter, policy)
+        }
+
+        fun removeStrong(adaptee: Any): Any? {
+            val value = this.table[adaptee]
+
+            return when (value) {
+                null, is WeakAdapter, is PendingAdapter -> null
+                is BoundedAdapter -> {
+                    this.remove(value)
+                    value.adapter
+                }
+                else -> {
+                    this.table.remove(adaptee)
+                    this.uncached(adaptee)
+                    value
+                }
+            }
+        }
+
+        fun clearWeak() {
+            this.table.values.removeIf { it is WeakAdapter }
+            this.expunge()
+        }
+
+        fun clearStrong() {
+            this.table.entries.removeIf { (adaptee, value) ->
+                (value !is WeakAdapter && value !is PendingAdapter).also { if (it) this.uncached(adaptee) }
+            }
+            this.head = null
+            this.tail = null
+            this@SpecificationCache.boundedCount.addAndGet(-this.boundedCount)
+            this.boundedCount = 0
+        }
+
+        fun copyTo(map: MutableMap<Pair<AdapterSpecification<*, *>, Any>, Any>,
+                   strong: Boolean,
+                   specification: AdapterSpecification<*, *>) {
+            this.table.forEach { adaptee, value ->
+                when (value) {
+                    is WeakAdapter -> if (!strong) value.get()?.let { map[Pair.of(specification, adaptee)] = it }
+                    is BoundedAdapter -> if (strong) map[Pair.of(specification, adaptee)] = value.adapter
+                    is PendingAdapter -> Unit
+                    else -> if (strong) map[Pair.of(specification, adaptee)] = value
+                }
+            }
+        }
+
+        private fun store(adaptee: Any, adapter: Any, policy: CachePolicy) {
+            val value = when {
+                !policy.strong -> WeakAdapter(adaptee, adapter, this.queue)
+                policy.isBounded -> BoundedAdapter(adaptee, adapter, policy)
+                else -> adapter
+            }
+
+            val previous = this.table.put(adaptee, value)
+
+            if (previous is BoundedAdapter)
+                this.unlink(previous)
+
+            if (previous != null && previous !is WeakAdapter && previous !is PendingAdapter)
+                this.uncached(adaptee)
+
+            if (value !is WeakAdapter)
+                this.cached(adaptee)
+
+            if (value is BoundedAdapter) {
+                value.accessTime = System.nanoTime()
+                this.linkLast(value)
+                this.expire(value.accessTime)
+                this.evict(policy, adapter)
+            }
+        }
+
+        /**
+         * Records an access to [bounded] adapter and returns it, or returns null if it has expired (and removes it).
+         */
+        private fun access(bounded: BoundedAdapter): Any? {
+            if (bounded.policy.expires) {
+                val now = System.nanoTime()
+
+                if (bounded.isExpired(now)) {
+                    this.remove(bounded)
+                    return null
+                }
+
+                bounded.accessTime = now
+            }
+
+            if (bounded.frequency < Int.MAX_VALUE)
+                ++bounded.frequency
+
+            if (bounded !== this.tail) {
+                this.unlink(bounded)
+                this.linkLast(bounded)
+            }
+
+            return bounded.adapter
+        }
+
+        /**
+         * Removes expired bounded adapters.
+         */
+        private fun expire(now: Long) {
+            // Bounded adapters are sorted by access time, so expired adapters are always in the head.
+            while (true) {
+                val head = this.head ?: break
+
+                if (!head.isExpired(now))
+                    break
+
+                this.remove(head)
+            }
+        }
+
+        /**
+         * Evicts bounded adapters of this stripe, except the [fresh] adapter, while the size limit of [policy]
+         * is exceeded in the whole cache.
+         */
+        fun evict(policy: CachePolicy, fresh: Any) {
+            if (policy.maximumSize < 0)
+                return
+
+            while (this@SpecificationCache.boundedCount.get() > policy.maximumSize) {
+                this.remove(this.victim(policy, fresh) ?: return)
+            }
+        }
+
+        /**
+         * Gets the least recently used adapter ([EvictionPolicy.LRU]) or the least frequently used adapter
+         * of the [LFU_SAMPLE] least recently used adapters ([EvictionPolicy.LFU]), ignoring the [fresh] adapter
+         * (which would always be the least frequently used one). Returns null if there is no other adapter.
+         */
+        private fun victim(policy: CachePolicy, fresh: Any): BoundedAdapter? {
+            val sample = if (policy.eviction == EvictionPolicy.LFU) LFU_SAMPLE else 1
+            var victim: BoundedAdapter? = null
+            var candidate = this.head
+            var sampled = 0
+
+            while (candidate != null && sampled < sample) {
+                if (candidate.adapter !== fresh) {
+                    if (victim == null || candidate.frequency < victim.frequency)
+                        victim = candidate
+
+                    ++sampled
+                }
+
+                candidate = candidate.next
+            }
+
+            return victim
+        }
+
+        private fun remove(bounded: BoundedAdapter) {
+            this.unlink(bounded)
+
+            if (this.table[bounded.adaptee] === bounded) {
+                this.table.remove(bounded.adaptee)
+                this.uncached(bounded.adaptee)
+            }
+        }
+
+        private fun cached(adaptee: Any) {
+            this@SpecificationCache.listener?.strongCached(adaptee, this@SpecificationCache)
+        }
+
+        private fun uncached(adaptee: Any) {
+            this@SpecificationCache.listener?.strongUncached(adaptee, this@SpecificationCache)
+        }
+
+        private fun linkLast(bounded: BoundedAdapter) {
+            val tail = this.tail
+
+            bounded.previous = tail
+            bounded.next = null
+
+            if (tail == null)
+                this.head = bounded
+            else
+                tail.next = bounded
+
+            this.tail = bounded
+            ++this.boundedCount
+            this@SpecificationCache.boundedCount.incrementAndGet()
+        }
+
+        private fun unlink(bounded: BoundedAdapter) {
+            val previous = bounded.previous
+            val next = bounded.next
+
+            if (previous == null) {
+                if (this.head !== bounded)
+                    return // Not linked
+
+                this.head = next
+            } else {
+                previous.next = next
+            }
+
+            if (next == null)
+                this.tail = previous
+            else
+                next.previous = previous
+
+            bounded.previous = null
+            bounded.next = null
+            --this.boundedCount
+            this@SpecificationCache.boundedCount.decrementAndGet()
+        }
+
+        /**
+         * Removes entries of collected weak cached adapters.
+         */
+        private fun expunge() {
+            while (true) {
+                val collected = this.queue.poll() as? WeakAdapter ?: return
+
+                if (this.table[collected.adaptee] === collected)
+                    this.table.remove(collected.adaptee)
+            }
+        }
+    }
+
+    /**
+     * Listener of strong cached adapters, notified while holding the lock of the cache, so implementations
+     * should not call [SpecificationCache] functions.
+     */
+    interface Listener {
+
+        /**
+         * Called when an adapter of [adaptee] is strong cached in [cache].
+         */
+        fun strongCached(adaptee: Any, cache: SpecificationCache)
+
+        /**
+         * Called when the strong cached adapter of [adaptee] is removed from [cache].
+         */
+        fun strongUncached(adaptee: Any, cache: SpecificationCache)
+    }
+
+    /**
+     * Strong cached [adapter] of [adaptee] with bounded [policy], linked in access order.
+     */
+    private class BoundedAdapter(val adaptee: Any, val adapter: Any, val policy: CachePolicy) {
+        var previous: BoundedAdapter? = null
+        var next: BoundedAdapter? = null
+        var frequency: Int = 1
+        var accessTime: Long = 0
+
+        fun isExpired(now: Long) = this.policy.expires && now - this.accessTime > this.policy.expireAfterAccessNanos
+    }
+
+    /**
+     * Weak reference to adapter of [adaptee].
+     */
+    private class WeakAdapter(val adaptee: Any, adapter: Any, queue: ReferenceQueue<Any>)
+        : WeakReference<Any>(adapter, queue)
+
+    /**
+     * Adapter being created by [owner] thread.
+     */
+    private class PendingAdapter {
+        val owner: Thread = Thread.currentThread()
+
+        private val latch = CountDownLatch(1)
+
+        @Volatile
+        private var adapter: Any? = null
+
+        /**
+         * Completes the creation with [adapter] (null if creation failed) and wakes up waiting threads.
+         */
+        fun complete(adapter: Any?) {
+            this.adapter = adapter
+            this.latch.countDown()
+        }
+
+        /**
+         * Waits the creation and returns created adapter, or null if creation failed.
+         *
+         * Throws instead of waiting if the [owner] is (directly or through other threads) waiting for
+         * an adapter being created by current thread, which happens when adapters of [adaptee] and of
+         * other adaptee depend on each other and are created concurrently.
+         */
+        fun await(adaptee: Any): Any? {
+            val current = Thread.currentThread()
+
+            // Registered before looking for the cycle, so at least one of the threads of a cycle finds it.
+            WAITING[current] = this
+
+            try {
+                if (this.waitsFor(current))
+                    throw IllegalStateException("Recursive creation of adapter of '$adaptee' (by multiple threads).")
+
+                var interrupted = false
+
+                while (true) {
+                    try {
+                        this.latch.await()
+                        break
+                    } catch (e: InterruptedException) {
+                        interrupted = true
+                    }
+                }
+
+                if (interrupted)
+                    current.interrupt()
+
+                return this.adapter
+            } finally {
+                WAITING.remove(current)
+            }
+        }
+
+        /**
+         * Returns true if the creation of this adapter waits for an adapter being created by [thread].
+         */
+        private fun waitsFor(thread: Thread): Boolean {
+            var pending: PendingAdapter? = this
+            var remaining = WAITING.size
+
+            while (pending != null && remaining-- >= 0) {
+                if (pending.owner === thread)
+                    return true
+
+                pending = WAITING[pending.owner]
+            }
+
+            return false
+        }
+    }
+
+    companion object {
+        /**
+         * Adapters being waited by threads (of all caches), used to detect threads that wait each other.
+         */
+        private val WAITING = ConcurrentHashMap<Thread, PendingAdapter>()
+
+        /**
+         * Amount of least recently used adapters sampled to find the victim of [EvictionPolicy.LFU].
+         */
+        private const val LFU_SAMPLE = 8
+
+        /**
+         * Amount of stripes of [concurrent] caches (power of two).
+         */
+        @JvmField
+        val STRIPES: Int = Runtime.getRuntime().availableProcessors().let { processors ->
+            var stripes = 1
+
+            while (stripes < processors * 4 && stripes < 64)
+                stripes = stripes shl 1
+
+            stripes
+        }
+    }
+}
@@ -27,18 +27,33 @@
  */
 package com.github.jonathanxd.adapterhelper
 
+import java.util.concurrent.TimeUnit
 
 /**
  * Stores adapter as strong reference instead of weak reference, this is commonly used when
  * `Adapter` stores states, removal of adapter instance should be manually handled.
  *
  * Use with care, in bigger environments the memory usage may grow significantly if you don't
- * remove unused instances. Other option is to use [WeakAdapteeStorage] to store dynamic fields.
+ * remove unused instances. Other option is to use [WeakAdapteeStorage] to store dynamic fields,
+ * or to bound the cache with [maximumSize] and/or [expireAfterAccess].
  *
  * If you don't desire this behavior and it is enabled implicitly, or you don't have control of the
  * behavior enabling, you can use [ForceWeakCache].
+ *
+ * @property maximumSize Maximum amount of strong cached adapters per specification, when exceeded,
+ * an adapter is evicted according to [eviction] (negative for unbounded, `0` is not allowed because the
+ * adapter being cached is never evicted by its own insertion). The limit applies to the whole cache of the
+ * specification, but concurrent managers choose the victim among adapters of one lock stripe at a time,
+ * so the eviction order is approximate.
+ * @property eviction Policy used to choose the adapter to evict.
+ * @property expireAfterAccess Time (in [timeUnit]) that adapters are kept after last access (negative for
+ * no expiration).
+ * @property timeUnit Unit of [expireAfterAccess].
  */
 @MustBeDocumented
 @Target(AnnotationTarget.CLASS)
 @Retention(AnnotationRetention.RUNTIME)
-annotation class StrongCache
+annotation class StrongCache(val maximumSize: Long = -1,
+                             val eviction: EvictionPolicy = EvictionPolicy.LRU,
+                             val expireAfterAccess: Long = -1,
+                             val timeUnit: TimeUnit = TimeUnit.MILLISECONDS)
@@ -0,0 +1,82 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper
+
+import java.util.*
+
+/**
+ * Reverse index of strong cached adapters: maps each adaptee (by identity) to [SpecificationCaches][SpecificationCache]
+ * that holds a strong cached adapter of it, so the adapters of an adaptee can be uncached without visiting
+ * all caches.
+ *
+ * @property concurrent Whether this index is accessed by multiple threads.
+ */
+class StrongCacheIndex @JvmOverloads constructor(val concurrent: Boolean = false) : SpecificationCache.Listener {
+
+    private val stripes = Array(if (this.concurrent) SpecificationCache.STRIPES else 1) {
+        IdentityHashMap<Any, MutableList<SpecificationCache>>()
+    }
+
+    override fun strongCached(adaptee: Any, cache: SpecificationCache) {
+        this.locked(adaptee) { table ->
+            val caches = table.getOrPut(adaptee) { ArrayList(2) }
+
+            if (caches.none { it === cache })
+                caches.add(cache)
+        }
+    }
+
+    override fun strongUncached(adaptee: Any, cache: SpecificationCache) {
+        this.locked(adaptee) { table ->
+            val caches = table[adaptee] ?: return@locked
+
+            caches.removeIf { it === cache }
+
+            if (caches.isEmpty())
+                table.remove(adaptee)
+        }
+    }
+
+    /**
+     * Gets a snapshot of caches that holds a strong cached adapter of [adaptee].
+     */
+    fun cachesOf(adaptee: Any): List<SpecificationCache> =
+            this.locked(adaptee) { table -> table[adaptee]?.toList() ?: emptyList() }
+
+    private inline fun <R> locked(adaptee: Any, block: (IdentityHashMap<Any, MutableList<SpecificationCache>>) -> R): R {
+        val stripes = this.stripes
+
+        if (stripes.size == 1)
+            return if (this.concurrent) synchronized(stripes[0]) { block(stripes[0]) } else block(stripes[0])
+
+        val hash = System.identityHashCode(adaptee)
+        val table = stripes[(hash xor (hash ushr 16)) and (stripes.size - 1)]
+
+        return synchronized(table) { block(table) }
+    }
+}
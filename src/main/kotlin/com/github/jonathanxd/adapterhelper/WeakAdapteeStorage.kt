@@ -74,4 +74,23 @@ class WeakAdapteeStorage : Storage {
     }
 
 
+}
+
+/**
+ * [Storage] that synchronizes all accesses to [wrapped] storage.
+ */
+class SynchronizedStorage(private val wrapped: Storage) : Storage {
+
+    @Synchronized
+    override fun <E : Any, T : Any, V : Any> store(adaptee: E, name: String, value: V?, adapterType: Class<T>) {
+        this.wrapped.store(adaptee, name, value, adapterType)
+    }
+
+    @Synchronized
+    override fun <E : Any, T : Any, V : Any> retrieve(adaptee: E, name: String, adapterType: Class<T>): V? =
+            this.wrapped.retrieve(adaptee, name, adapterType)
+
+    @Synchronized
+    override fun <E : Any, T : Any> hasValue(adaptee: E, name: String, adapterType: Class<T>): Boolean =
+            this.wrapped.hasValue(adaptee, name, adapterType)
 }
\ No newline at end of file
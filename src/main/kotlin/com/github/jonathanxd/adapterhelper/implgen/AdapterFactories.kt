@@ -0,0 +1,94 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import com.github.jonathanxd.adapterhelper.AdapterManager
+import com.github.jonathanxd.adapterhelper.ClosedWorld
+import java.lang.invoke.LambdaMetafactory
+import java.lang.invoke.MethodHandles
+import java.lang.invoke.MethodType
+
+/**
+ * Creates factories of classes generated by [AdapterImplGen] which are directly linked to generated
+ * constructor, so creating an adapter through the factory costs the same as a plain `new`.
+ */
+object AdapterFactories {
+
+    /**
+     * Name of private static method generated in adapter implementations which returns the [MethodHandles.Lookup]
+     * of the implementation. The method is private, so the full-privilege lookup is only handed to
+     * [AdapterFactories] (which explicitly suppresses the access check).
+     *
+     * The factory is spun in the context of this lookup, because the lambda class must be able to resolve
+     * the generated class (which is defined by a child class loader).
+     */
+    const val LOOKUP_METHOD = "adapterhelper\$lookup"
+
+    /**
+     * Creates the factory of [implClass] which receives [adapteeClass] and [AdapterManager] as constructor
+     * arguments. If [implClass] does not provide a [lookup method][LOOKUP_METHOD], a reflective factory is created.
+     *
+     * In [ClosedWorld] mode a reflective factory is always created, because [LambdaMetafactory] spins the factory
+     * class at runtime.
+     */
+    @JvmStatic
+    fun <E : Any, T : Any> create(implClass: Class<out T>, adapteeClass: Class<E>): (E, AdapterManager) -> T {
+        if (ClosedWorld.isClosedWorld())
+            return this.createReflective(implClass, adapteeClass)
+
+        val lookupMethod = try {
+            implClass.getDeclaredMethod(LOOKUP_METHOD)
+        } catch (e: NoSuchMethodException) {
+            return this.createReflective(implClass, adapteeClass)
+        }
+
+        lookupMethod.isAccessible = true
+
+        val lookup = lookupMethod.invoke(null) as MethodHandles.Lookup
+        val constructorType = MethodType.methodType(Void.TYPE, adapteeClass, AdapterManager::class.java)
+
+        val site = LambdaMetafactory.metafactory(
+                lookup,
+                "invoke",
+                MethodType.methodType(Function2::class.java),
+                MethodType.methodType(Any::class.java, Any::class.java, Any::class.java),
+                lookup.findConstructor(implClass, constructorType),
+                MethodType.methodType(implClass, adapteeClass, AdapterManager::class.java)
+        )
+
+        @Suppress("UNCHECKED_CAST")
+        return site.target.invokeWithArguments() as (E, AdapterManager) -> T
+    }
+
+    private fun <E : Any, T : Any> createReflective(implClass: Class<out T>,
+                                                    adapteeClass: Class<E>): (E, AdapterManager) -> T {
+        val ctr = implClass.getDeclaredConstructor(adapteeClass, AdapterManager::class.java)
+
+        return { e, manager -> ctr.newInstance(e, manager) }
+    }
+}
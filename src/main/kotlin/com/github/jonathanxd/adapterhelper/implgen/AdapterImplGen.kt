@@ -29,7 +29,7 @@ package com.github.jonathanxd.adapterhelper.implgen
 
 import com.github.jonathanxd.adapterhelper.Adapter
 import com.github.jonathanxd.adapterhelper.AdapterManager
-import com.github.jonathanxd.adapterhelper.Try
+import com.github.jonathanxd.adapterhelper.ClosedWorld
 import com.github.jonathanxd.adapterhelper.implgen.add.AdditionalHandler
 import com.github.jonathanxd.adapterhelper.implgen.add.AdditionalHandlerHelper
 import com.github.jonathanxd.iutils.data.TypedData
@@ -38,7 +38,7 @@ import com.github.jonathanxd.iutils.kt.biStream
 import com.github.jonathanxd.iutils.type.TypeInfo
 import com.github.jonathanxd.kores.Types
 import com.github.jonathanxd.kores.base.*
-import com.github.jonathanxd.kores.bytecode.classloader.CodeClassLoader
+import com.github.jonathanxd.kores.bytecode.BytecodeClass
 import com.github.jonathanxd.kores.bytecode.processor.BytecodeGenerator
 import com.github.jonathanxd.kores.common.MethodTypeSpec
 import com.github.jonathanxd.kores.common.VariableRef
@@ -54,9 +54,12 @@ import com.github.jonathanxd.koresgenutil.CodeGen
 import com.github.jonathanxd.koresgenutil.implementer.Implementer
 import com.github.jonathanxd.koresgenutil.property.Property
 import com.github.jonathanxd.koresgenutil.property.PropertySystem
+import java.lang.invoke.MethodHandles
 import java.lang.reflect.Method
 import java.lang.reflect.Modifier
 import java.util.*
+import java.util.concurrent.*
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.function.Supplier
 
 /**
@@ -64,34 +67,126 @@ import java.util.function.Supplier
  */
 object AdapterImplGen {
 
-    private val loader = SaveCapableCodeClassLoader(CodeClassLoader())
+    /**
+     * Scope of classes generated by [genImpl] and [genImplAll], classes of this scope are never unloaded.
+     * Use a [GenerationScope] to generate unloadable classes.
+     */
+    @JvmStatic
+    val globalScope = GenerationScope()
+
+    /**
+     * Persistent cache of generated classes, enabled by [BytecodeCache.CACHE_DIRECTORY] property.
+     */
+    internal val bytecodeCache = BytecodeCache.fromProperty()
 
-    private var inc: Int = 0
+    private val inc = AtomicInteger()
 
     private val incremental: Int
-        get() {
-            ++inc
-            return inc
-        }
+        get() = inc.incrementAndGet()
 
-    private const val adapteeInstanceField = "adapteeInstance"
-    private const val originalInstanceField = "originalInstance"
-    private const val adapterManagerField = "adapterManager"
+    internal const val adapteeInstanceField = "adapteeInstance"
+    internal const val originalInstanceField = "originalInstance"
+    internal const val adapterManagerField = "adapterManager"
 
-    private const val adapteeInstanceGet = "getAdapteeInstance"
-    private const val originalInstanceGet = "getOriginalInstance"
-    private const val adapterManagerGet = "getAdapterManager"
+    internal const val adapteeInstanceGet = "getAdapteeInstance"
+    internal const val originalInstanceGet = "getOriginalInstance"
+    internal const val adapterManagerGet = "getAdapterManager"
 
     /**
      * Generate implementation of an [Adapter] interface with two-arg constructor
      * that receives either [T] and [AdapterManager].
+     *
+     * The implementation is generated only once for each [klass], [type] and [additionalHandlers_], subsequent
+     * calls returns the same class. This function is thread-safe, concurrent calls with the same arguments
+     * waits the class generated by the first call.
+     *
+     * The class is defined in [globalScope], see [GenerationScope.genImpl] to define unloadable classes.
      */
+    @Suppress("UNCHECKED_CAST")
     @JvmStatic
     @JvmOverloads
     fun <F : Any, T : Any> genImpl(
         klass: Class<out F>, type: Class<T>,
         additionalHandlers_: List<AdditionalHandler> = emptyList()
-    ): Class<out F> {
+    ): Class<out F> = this.globalScope.genImpl(klass, type, additionalHandlers_)
+
+    /**
+     * Generates implementations of all [requests] (as specified in [genImpl]) in parallel using [pool],
+     * and returns generated classes in the same order as [requests].
+     *
+     * Classes are generated concurrently and defined in batches, already generated classes are reused.
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun genImplAll(requests: List<ImplRequest>, pool: ForkJoinPool = ForkJoinPool.commonPool()): List<Class<*>> =
+        this.globalScope.genImplAll(requests, pool)
+
+    /**
+     * Generates the bytecode of implementation of [klass] for [type] (as specified in [genImpl]) named [name],
+     * without defining the class. Used to generate implementations ahead-of-time, see [AdapterPregenerator].
+     *
+     * @param direct Whether to use [DirectAdapterGen] when possible, [DirectAdapterGen.isEnabled] by default.
+     * @param inline Whether to [inline][DefaultImplsInliner] `DefaultImpls` bodies, [DefaultImplsInliner.isEnabled]
+     * by default.
+     */
+    @JvmStatic
+    @JvmOverloads
+    fun genImplBytecode(
+        klass: Class<*>, type: Class<*>, name: String,
+        direct: Boolean = DirectAdapterGen.isEnabled(),
+        inline: Boolean = DefaultImplsInliner.isEnabled()
+    ): List<BytecodeClass> =
+        this.generate(klass, type, emptyList(), name, direct, inline)
+
+    internal fun checkOpenWorld() {
+        if (ClosedWorld.isClosedWorld())
+            throw IllegalStateException("Runtime generation of adapters is disabled by '${ClosedWorld.CLOSED_WORLD}'.")
+    }
+
+    /**
+     * Loads the implementation of [key] from [bytecodeCache], or generates it if not cached.
+     */
+    internal fun prepare(key: GenKey): Generation {
+        val fingerprint = this.fingerprint(key)
+        val entry = fingerprint?.let { this.bytecodeCache?.load(it) }
+
+        return if (entry != null) Generation(fingerprint, entry, null)
+        else Generation(fingerprint, null, this.generate(key, fingerprint))
+    }
+
+    /**
+     * Fingerprint of [key] in [bytecodeCache], or null if the implementation of [key] can not be persisted.
+     * Implementations generated with explicit additional handlers are never persisted because the handler
+     * state may affect the generated code.
+     */
+    private fun fingerprint(key: GenKey): String? {
+        val cache = this.bytecodeCache ?: return null
+
+        if (key.additionalHandlers.isNotEmpty())
+            return null
+
+        val handlerClasses = key.klass.getDeclaredAnnotation(Additional::class.java)?.value?.map { it.java }.orEmpty()
+
+        return cache.fingerprint(key.klass, key.type, handlerClasses)
+    }
+
+    internal fun generate(key: GenKey, fingerprint: String?): List<BytecodeClass> =
+        this.generate(
+            key.klass,
+            key.type,
+            key.additionalHandlers,
+            // Persisted classes have stable names, so they never clash with classes generated in this run.
+            fingerprint?.let { "${key.klass.canonicalName}_${it.substring(0, 16)}" }
+                    ?: "${key.klass.canonicalName}_$incremental"
+        )
+
+    private fun generate(
+        klass: Class<*>, type: Class<*>,
+        additionalHandlers_: List<AdditionalHandler>,
+        name: String,
+        direct: Boolean = DirectAdapterGen.isEnabled(),
+        inline: Boolean = DefaultImplsInliner.isEnabled()
+    ): List<BytecodeClass> {
 
 
         if (!klass.isInterface)
@@ -118,9 +213,19 @@ object AdapterImplGen {
         val fields = klass.getAnnotationsByType(Field::class.java).toMutableList() +
                 klass.getAnnotationsByType(Fields::class.java).flatMap { it.value.toMutableList() }
 
+        if (additionalHandlers.isNotEmpty()) {
+            DirectAdapterGen.checkNotRequired(klass, "additional handlers are present")
+        } else if (!direct) {
+            DirectAdapterGen.checkNotRequired(klass, "disabled by '${DirectAdapterGen.DIRECT}'")
+        } else {
+            DirectAdapterGen.generate(klass, type, fields, name, inline)?.let {
+                return listOf(BytecodeClass(this.declarationOf(klass, name), it))
+            }
+        }
+
         val shouldIncludeManager = Adapter::class.java.isAssignableFrom(klass)
 
-        val owner = TypeRef(null, "${klass.canonicalName}_$incremental", false)
+        val owner = TypeRef(null, name, false)
 
         // Additional
 
@@ -187,21 +292,18 @@ object AdapterImplGen {
 
         val codeFields = fcodeFields + additionalFields
 
-        val defaultImpls = mutableMapOf<MethodTypeSpec, Method>()
+        val plan = ImplementationPlan(fields, additionalProperties, mapOfMethodToHandler)
 
         val filter = klass.methods.filter {
             Modifier.isAbstract(it.modifiers)
-                    && !it.isFieldMethod(fields)
+                    && !plan.isFieldMethod(it)
                     && !(getDefaultImpl(klass, it)?.let { x ->
-                defaultImpls.put(
-                    it.methodTypeSpec,
-                    x
-                ); true
+                plan.addDefaultImpl(it.methodTypeSpec, x); true
             } ?: false)
                     && !isInstanceMethod(it)
                     && (shouldIncludeManager && !isAdapterMethod(it))
-                    && !isNotImplementedByAdditional(it, mapOfMethodToHandler)
-                    && !it.isAdditionalPropertyMethod(additionalProperties)
+                    && !plan.isImplementedByHandler(it.methodTypeSpec)
+                    && !plan.isAdditionalPropertyMethod(it)
         }
 
         val count = filter.size
@@ -226,20 +328,19 @@ object AdapterImplGen {
             fun Property.toRef() = VariableRef(this.type, this.name)
 
             val additionalGetter =
-                if (empty) additionalProperties.firstOrNull { method.name == "get${it.name.capitalize()}" }?.toRef()
+                if (empty) plan.propertyGetters[method.name]?.toRef()
                 else null
 
             val additionalSetter =
-                if (method.parameters.size == 1) additionalProperties
-                    .firstOrNull { method.name == "set${it.name.capitalize()}" }?.toRef()
+                if (method.parameters.size == 1) plan.propertySetters[method.name]?.toRef()
                 else null
 
             val fieldGetter =
-                if (empty) fields.firstOrNull { it.getter == method.name }?.toRef()
+                if (empty) plan.fieldGetters[method.name]?.toRef()
                 else null
 
             val fieldSetter =
-                if (method.parameters.size == 1) fields.firstOrNull { it.setter == method.name }?.toRef()
+                if (method.parameters.size == 1) plan.fieldSetters[method.name]?.toRef()
                 else null
 
             if (empty && (method.name == originalInstanceGet || method.name == adapteeInstanceGet)) {
@@ -283,35 +384,25 @@ object AdapterImplGen {
                     )
                 ).build()
             } else {
-                val get = defaultImpls.entries.firstOrNull {
-                    it.key.methodName == method.name
-                            && it.key.typeSpec == method.typeSpec
-                }
+                val get = plan.defaultImplOf(method.name, method.typeSpec)
 
                 if (get != null) {
                     method.builder().body(
                         source(
                             returnValue(
                                 method.returnType,
-                                get.value.toInvocation(InvokeType.INVOKE_STATIC, Access.STATIC,
+                                get.toInvocation(InvokeType.INVOKE_STATIC, Access.STATIC,
                                     listOf(Access.THIS) + method.parameters.map { it.toVariableAccess() })
                             )
                         )
                     ).build()
                 } else {
-                    val spec = MethodTypeSpec(owner, method.name, method.typeSpec)
-
-                    mapOfMethodToHandler.toList().filter { (_, v) ->
-                        v.any {
-                            it.methodName == spec.methodName
-                                    && it.typeSpec.isConreteEq(spec.typeSpec)
-                        }
-                    }.forEach { (k, _) ->
-                            k.generateImplementation(method, owner, klass, typedDataGet(k))
-                                .orElse(null)?.let {
+                    plan.handlersOf(MethodTypeSpec(owner, method.name, method.typeSpec)).forEach { k ->
+                        k.generateImplementation(method, owner, klass, typedDataGet(k))
+                            .orElse(null)?.let {
                                 return@Implementer it
                             }
-                        }
+                    }
 
                     if (additionalGetter != null) {
                         return@Implementer method.builder().body(
@@ -386,54 +477,151 @@ object AdapterImplGen {
 
                 }).build()
             } + add.filterIsInstance<ConstructorDeclaration>())
-            .methods(cdeclaration.methods + add.filterIsInstance<MethodDeclaration>())
+            .methods(cdeclaration.methods + add.filterIsInstance<MethodDeclaration>() + genLookupMethod())
             .build()
 
-        val decl = BytecodeGenerator().process(declaration)
-
-        @Suppress("UNCHECKED_CAST")
-        return loader.define(decl) as Class<out F>
+        return BytecodeGenerator().process(declaration)
     }
 
-    private fun isNotImplementedByAdditional(
-        method: Method,
+    /**
+     * Declaration of class [name] generated by [DirectAdapterGen], only used to describe the [BytecodeClass].
+     */
+    private fun declarationOf(klass: Class<*>, name: String): TypeDeclaration =
+        ClassDeclaration.Builder.builder()
+            .modifiers(KoresModifier.PUBLIC, KoresModifier.SYNTHETIC)
+            .qualifiedName(name)
+            .superClass(Types.OBJECT)
+            .implementations(klass.koresType)
+            .build()
+
+    /**
+     * Implementation of a [GenKey] ready to be defined, either loaded from [bytecodeCache] ([entry])
+     * or generated ([bytecode]).
+     */
+    internal class Generation(
+        val fingerprint: String?,
+        val entry: BytecodeCache.Entry?,
+        val bytecode: List<BytecodeClass>?
+    )
+
+    /**
+     * Key of classes generated in a [GenerationScope].
+     */
+    internal data class GenKey(
+        val klass: Class<*>,
+        val type: Class<*>,
+        val additionalHandlers: List<AdditionalHandler>
+    )
+
+    /**
+     * Lookup tables of methods implemented by the generated class, indexed once per generated class by method name
+     * instead of scanning fields, properties, default implementations and handlers for each method.
+     */
+    private class ImplementationPlan(
+        fields: List<Field>,
+        additionalProperties: List<Property>,
         mapOfMethodToHandler: Map<AdditionalHandler, List<MethodTypeSpec>>
-    ): Boolean =
-        method.methodTypeSpec.let { spec ->
-            mapOfMethodToHandler.values.any {
-                it.any {
-                    it.methodName == spec.methodName
-                            && it.typeSpec.isConreteEq(spec.typeSpec)
-                }
-            }
-        }
+    ) {
+        val fieldGetters = fields.indexBy { it.getter }
+        val fieldSetters = fields.indexBy { it.setter }
+        val propertyGetters = additionalProperties.indexBy { "get${it.name.capitalize()}" }
+        val propertySetters = additionalProperties.indexBy { "set${it.name.capitalize()}" }
 
+        private val defaultImpls = mutableMapOf<String, MutableList<Pair<TypeSpec, Method>>>()
 
-    private fun Method.isFieldMethod(fields: List<Field>) =
-        fields.any {
-            (this.parameterCount == 0 && this.name == it.getter)
-                    || (this.parameterCount == 1 && this.name == it.setter)
-        }
+        private val handlers = mapOfMethodToHandler.entries
+            .flatMap { (handler, specs) -> specs.map { handler to it } }
+            .groupBy { it.second.methodName }
 
-    private fun Method.isAdditionalPropertyMethod(properties: List<Property>) =
-        properties.any {
-            (this.parameterCount == 0 && this.name == "get${it.name.capitalize()}")
-                    || (this.parameterCount == 1 && this.name == "set${it.name.capitalize()}")
+        fun isFieldMethod(method: Method) =
+            (method.parameterCount == 0 && this.fieldGetters.containsKey(method.name))
+                    || (method.parameterCount == 1 && this.fieldSetters.containsKey(method.name))
+
+        fun isAdditionalPropertyMethod(method: Method) =
+            (method.parameterCount == 0 && this.propertyGetters.containsKey(method.name))
+                    || (method.parameterCount == 1 && this.propertySetters.containsKey(method.name))
+
+        fun addDefaultImpl(spec: MethodTypeSpec, impl: Method) {
+            this.defaultImpls.getOrPut(spec.methodName) { mutableListOf() } += spec.typeSpec to impl
         }
 
+        fun defaultImplOf(name: String, typeSpec: TypeSpec): Method? =
+            this.defaultImpls[name]?.firstOrNull { it.first == typeSpec }?.second
+
+        /**
+         * Handlers that implement [spec], in the order of registration.
+         */
+        fun handlersOf(spec: MethodTypeSpec): List<AdditionalHandler> =
+            this.handlers[spec.methodName].orEmpty()
+                .filter { it.second.typeSpec.isConreteEq(spec.typeSpec) }
+                .map { it.first }
+                .distinct()
+
+        fun isImplementedByHandler(spec: MethodTypeSpec) =
+            this.handlers[spec.methodName].orEmpty().any { it.second.typeSpec.isConreteEq(spec.typeSpec) }
+
+        /**
+         * Indexes elements by [key], the first element wins when keys clash.
+         */
+        private fun <T> List<T>.indexBy(key: (T) -> String): Map<String, T> =
+            HashMap<String, T>().also { map -> this.forEach { map.putIfAbsent(key(it), it) } }
+    }
 
-    private fun getDefaultImpl(klass: Class<*>, method: Method): Method? {
-        klass.classes.firstOrNull { it.name.endsWith("DefaultImpls") }?.let {
-            Try {
-                it.getDeclaredMethod(
-                    method.name,
-                    it.enclosingClass,
-                    *method.parameterTypes
-                )
-            }.first?.let {
-                if (Modifier.isStatic(it.modifiers))
-                    return it
+    /**
+     * Key of [DEFAULT_IMPLS], [parameterTypes] does not include the receiver parameter.
+     */
+    private data class DefaultImplKey(val name: String, val parameterTypes: List<Class<*>>)
+
+    /**
+     * Static methods of Kotlin `DefaultImpls` of each interface, indexed once per interface.
+     */
+    private val DEFAULT_IMPLS = object : ClassValue<Map<DefaultImplKey, Method>>() {
+        override fun computeValue(type: Class<*>): Map<DefaultImplKey, Method> {
+            val impls = type.classes.firstOrNull { it.name.endsWith("DefaultImpls") } ?: return emptyMap()
+            val map = HashMap<DefaultImplKey, Method>()
+
+            impls.declaredMethods.forEach {
+                val parameters = it.parameterTypes
+
+                if (Modifier.isStatic(it.modifiers) && parameters.isNotEmpty() && parameters[0] == impls.enclosingClass)
+                    map.putIfAbsent(DefaultImplKey(it.name, parameters.asList().subList(1, parameters.size)), it)
             }
+
+            return map
+        }
+    }
+
+    /**
+     * Generates the [lookup method][AdapterFactories.LOOKUP_METHOD] used by [AdapterFactories] to link
+     * the factory of generated class.
+     */
+    private fun genLookupMethod(): MethodDeclaration =
+        MethodDeclaration.Builder.builder()
+            .modifiers(KoresModifier.PRIVATE, KoresModifier.STATIC, KoresModifier.SYNTHETIC)
+            .returnType(MethodHandles.Lookup::class.java)
+            .name(AdapterFactories.LOOKUP_METHOD)
+            .body(
+                source(
+                    returnValue(
+                        MethodHandles.Lookup::class.java,
+                        Access.STATIC.invoke(
+                            invokeType = InvokeType.INVOKE_STATIC,
+                            localization = MethodHandles::class.java,
+                            name = "lookup",
+                            spec = TypeSpec(MethodHandles.Lookup::class.java),
+                            arguments = emptyList()
+                        )
+                    )
+                )
+            )
+            .build()
+
+    /**
+     * Gets the static implementation of [method] in Kotlin `DefaultImpls` of [klass] or its super types.
+     */
+    internal fun getDefaultImpl(klass: Class<*>, method: Method): Method? {
+        DEFAULT_IMPLS.get(klass)[DefaultImplKey(method.name, method.parameterTypes.asList())]?.let {
+            return it
         }
 
         klass.superclass?.let {
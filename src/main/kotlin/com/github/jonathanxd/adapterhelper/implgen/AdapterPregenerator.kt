@@ -0,0 +1,112 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import com.github.jonathanxd.kores.base.TypeDeclaration
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.stream.Collectors
+
+/**
+ * Generates implementations of adapter interfaces annotated with [Pregenerate] ahead-of-time (Requires Kores,
+ * Kores-BytecodeWriter and CodeGenUtil only at build time).
+ *
+ * Usage: `AdapterPregenerator <output directory> <class directories...>`
+ *
+ * All interfaces found in class directories (which must be in the classpath) are scanned, the class files of
+ * implementations are written to output directory, along with the [PregeneratedAdapters.INDEX] of them.
+ */
+object AdapterPregenerator {
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        if (args.size < 2)
+            throw IllegalArgumentException("Usage: AdapterPregenerator <output directory> <class directories...>")
+
+        val output = Paths.get(args[0])
+        val loader = Thread.currentThread().contextClassLoader ?: AdapterPregenerator::class.java.classLoader
+
+        val entries = args.drop(1)
+            .map { Paths.get(it) }
+            .filter { Files.isDirectory(it) }
+            .flatMap { this.scan(it, loader) }
+            .flatMap { this.pregenerate(output, it) }
+
+        val index = output.resolve(PregeneratedAdapters.INDEX)
+
+        Files.createDirectories(index.parent)
+        Files.write(index, entries.map { it.toString() })
+    }
+
+    /**
+     * Generates implementations of all [Pregenerate] annotations of [klass] in [output] directory.
+     */
+    fun pregenerate(output: Path, klass: Class<*>): List<PregeneratedAdapters.Entry> =
+        (klass.getAnnotationsByType(Pregenerate::class.java).toList() +
+                klass.getAnnotationsByType(Pregenerates::class.java).flatMap { it.value.toList() }).map {
+            val adapterClass = it.adapterClass.java
+            val adapteeClass = it.adapteeClass.java
+
+            if (!adapterClass.isAssignableFrom(klass))
+                throw IllegalArgumentException("The adapter interface '$klass' is not assignable to '$adapterClass'.")
+
+            val name = "${klass.canonicalName}_Pregenerated_${adapteeClass.name.replace('.', '_').replace('$', '_')}"
+
+            AdapterImplGen.genImplBytecode(klass, adapteeClass, name).forEach {
+                val declaration = it.declaration as TypeDeclaration
+                val file = output.resolve(declaration.canonicalName.replace('.', '/') + ".class")
+
+                Files.createDirectories(file.parent)
+                Files.write(file, it.bytecode)
+            }
+
+            PregeneratedAdapters.Entry(klass.name, adapterClass.name, adapteeClass.name, name)
+        }
+
+    /**
+     * Finds all interfaces annotated with [Pregenerate] in [directory].
+     */
+    private fun scan(directory: Path, loader: ClassLoader): List<Class<*>> =
+        Files.walk(directory).use { paths ->
+            paths.filter { it.toString().endsWith(".class") }
+                .map { directory.relativize(it).toString().removeSuffix(".class").replace(it.fileSystem.separator, ".") }
+                .filter { !it.endsWith("module-info") && !it.endsWith("package-info") }
+                .collect(Collectors.toList())
+        }.mapNotNull {
+            try {
+                Class.forName(it, false, loader)
+            } catch (e: ClassNotFoundException) {
+                null
+            } catch (e: LinkageError) {
+                null
+            }
+        }.filter {
+            it.isInterface && (it.isAnnotationPresent(Pregenerate::class.java) || it.isAnnotationPresent(Pregenerates::class.java))
+        }
+}
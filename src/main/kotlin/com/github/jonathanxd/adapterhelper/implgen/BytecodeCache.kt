@@ -0,0 +1,241 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import com.github.jonathanxd.kores.Types
+import com.github.jonathanxd.kores.bytecode.processor.BytecodeGenerator
+import com.github.jonathanxd.koresgenutil.CodeGen
+import org.objectweb.asm.ClassWriter
+import java.io.*
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+
+/**
+ * Persistent cache of bytecode of classes generated by [AdapterImplGen], stored in [directory].
+ *
+ * Entries are keyed by a [fingerprint] of the class files of adapter interface (and its super interfaces and their
+ * Kotlin `DefaultImpls`, which may be inlined, along with the classes referenced by inlinable bodies), adaptee class,
+ * additional handlers and the generators themselves, of the versions of the code generation libraries (Kores,
+ * KoresGenUtil and ASM) and of the generator options ([DirectAdapterGen.DIRECT] and [DefaultImplsInliner.INLINE]),
+ * so any change to these classes, libraries or options invalidates the entry.
+ *
+ * @property directory Directory of cache entries.
+ */
+class BytecodeCache(val directory: Path) {
+
+    /**
+     * Computes the fingerprint of the implementation of [klass] for [type] generated with [handlerClasses],
+     * or returns null if the class file of any of these classes could not be read (the implementation
+     * can not be cached).
+     */
+    fun fingerprint(klass: Class<*>, type: Class<*>, handlerClasses: List<Class<*>>): String? {
+        val digest = MessageDigest.getInstance("SHA-256")
+
+        digest.update(GENERATOR ?: return null)
+
+        val classes = LinkedHashSet<Class<*>>()
+        val interfaces = LinkedHashSet<Class<*>>()
+
+        klass.collectInterfaces(interfaces)
+
+        interfaces.forEach { itf ->
+            classes += itf
+
+            itf.declaredClasses.filter { it.simpleName == "DefaultImpls" }.forEach { defaultImpls ->
+                classes += defaultImpls
+
+                // JDK classes only change along with the JDK.
+                if (DefaultImplsInliner.isEnabled())
+                    classes += DefaultImplsInliner.referencesOf(defaultImpls).filter { it.classLoader != null }
+            }
+        }
+
+        classes += type
+        classes += handlerClasses
+
+        if (!digest.updateClassFiles(classes))
+            return null
+
+        return digest.digest().joinToString(separator = "") { String.format("%02x", it) }
+    }
+
+    /**
+     * Loads the entry of [fingerprint], or returns null if there is no valid entry.
+     */
+    fun load(fingerprint: String): Entry? {
+        val file = this.fileOf(fingerprint)
+
+        if (!Files.isRegularFile(file))
+            return null
+
+        return try {
+            DataInputStream(BufferedInputStream(Files.newInputStream(file))).use {
+                val name = it.readUTF()
+                val bytes = ByteArray(it.readInt())
+
+                it.readFully(bytes)
+
+                val inlined = List(it.readInt()) { _ -> it.readUTF() }
+
+                Entry(name, bytes, inlined)
+            }
+        } catch (e: IOException) {
+            null
+        }
+    }
+
+    /**
+     * Stores the [bytes] of class [name] as the entry of [fingerprint], along with the methods [inlined] by
+     * [DefaultImplsInliner]. Failures are ignored, the class is generated again in the next start.
+     */
+    @JvmOverloads
+    fun store(fingerprint: String, name: String, bytes: ByteArray, inlined: List<String> = emptyList()) {
+        try {
+            Files.createDirectories(this.directory)
+
+            // Writes to a temporary file first, so other processes never read a partially written entry.
+            val temp = Files.createTempFile(this.directory, fingerprint, ".tmp")
+
+            DataOutputStream(BufferedOutputStream(Files.newOutputStream(temp))).use {
+                it.writeUTF(name)
+                it.writeInt(bytes.size)
+                it.write(bytes)
+                it.writeInt(inlined.size)
+                inlined.forEach(it::writeUTF)
+            }
+
+            Files.move(temp, this.fileOf(fingerprint), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } catch (e: IOException) {
+            // Cache is only an optimization
+        }
+    }
+
+    private fun fileOf(fingerprint: String): Path = this.directory.resolve("$fingerprint.bin")
+
+    /**
+     * Cached bytecode of class [name], and methods (name and descriptor) [inlined] by [DefaultImplsInliner]
+     * in the class.
+     */
+    class Entry @JvmOverloads constructor(val name: String, val bytes: ByteArray, val inlined: List<String> = emptyList())
+
+    companion object {
+        /**
+         * Property that specifies the directory of the persistent cache used by [AdapterImplGen]. The cache
+         * is disabled if the property is not present.
+         */
+        const val CACHE_DIRECTORY = "adapterhelper.implgen.cache"
+
+        /**
+         * Version of the format of cached classes, changed when the generated code changes in a way not
+         * reflected by class file of [AdapterImplGen].
+         */
+        private const val VERSION = "2"
+
+        /**
+         * Classes of the code generation libraries, their versions are part of the fingerprint.
+         */
+        private val LIBRARIES = listOf(Types::class.java, BytecodeGenerator::class.java, CodeGen::class.java,
+                ClassWriter::class.java)
+
+        /**
+         * Digest of the generator part of the fingerprint (which never changes while the generators are loaded),
+         * or null if it could not be computed.
+         */
+        private val GENERATOR: ByteArray? by lazy {
+            val digest = MessageDigest.getInstance("SHA-256")
+
+            digest.update(VERSION.toByteArray(Charsets.UTF_8))
+            digest.update("direct=${DirectAdapterGen.isEnabled()};inline=${DefaultImplsInliner.isEnabled()}"
+                    .toByteArray(Charsets.UTF_8))
+
+            LIBRARIES.forEach {
+                digest.update("${it.`package`?.implementationVersion};${it.libraryName()}".toByteArray(Charsets.UTF_8))
+            }
+
+            val classes = LinkedHashSet<Class<*>>(LIBRARIES)
+
+            AdapterImplGen::class.java.collectNested(classes)
+            DirectAdapterGen::class.java.collectNested(classes)
+            DefaultImplsInliner::class.java.collectNested(classes)
+
+            if (digest.updateClassFiles(classes)) digest.digest() else null
+        }
+
+        /**
+         * Cache of directory specified by [CACHE_DIRECTORY] property, or null if the property is not present.
+         */
+        @JvmStatic
+        fun fromProperty(): BytecodeCache? =
+                System.getProperty(CACHE_DIRECTORY)?.let { BytecodeCache(Paths.get(it)) }
+
+        private fun Class<*>.collectNested(set: MutableSet<Class<*>>) {
+            if (set.add(this))
+                this.declaredClasses.forEach { it.collectNested(set) }
+        }
+
+        private fun Class<*>.collectInterfaces(set: MutableSet<Class<*>>) {
+            if (set.add(this))
+                this.interfaces.forEach { it.collectInterfaces(set) }
+        }
+
+        /**
+         * Updates the digest with names and class files of [classes], returns false if any class file could not be read.
+         */
+        private fun MessageDigest.updateClassFiles(classes: Collection<Class<*>>): Boolean {
+            classes.forEach {
+                this.update(it.name.toByteArray(Charsets.UTF_8))
+                this.update(classFileOf(it) ?: return false)
+            }
+
+            return true
+        }
+
+        /**
+         * Name of the jar (or directory) that [this] class was loaded from, which commonly includes the version.
+         */
+        private fun Class<*>.libraryName(): String? =
+                try {
+                    this.protectionDomain?.codeSource?.location?.path?.trimEnd('/')?.substringAfterLast('/')
+                } catch (e: SecurityException) {
+                    null
+                }
+
+        private fun classFileOf(klass: Class<*>): ByteArray? {
+            val resource = "/" + klass.name.replace('.', '/') + ".class"
+
+            return try {
+                klass.getResourceAsStream(resource)?.use { it.readBytes() }
+            } catch (e: IOException) {
+                null
+            }
+        }
+    }
+}
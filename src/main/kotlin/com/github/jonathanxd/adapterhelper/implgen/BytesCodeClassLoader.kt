@@ -0,0 +1,53 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import com.github.jonathanxd.kores.bytecode.classloader.CodeClassLoader
+
+/**
+ * [CodeClassLoader] that can also define classes from raw bytes (without a Kores declaration), used to
+ * define classes loaded from [BytecodeCache].
+ *
+ * Classes not found by the default delegation are loaded from [fallback], if present, this allows generated
+ * classes to reference classes only visible to another class loader (such as plugin class loaders).
+ */
+class BytesCodeClassLoader @JvmOverloads constructor(val fallback: ClassLoader? = null) : CodeClassLoader() {
+
+    override fun loadClass(name: String, resolve: Boolean): Class<*> =
+            try {
+                super.loadClass(name, resolve)
+            } catch (e: ClassNotFoundException) {
+                this.fallback?.loadClass(name) ?: throw e
+            }
+
+    /**
+     * Defines class [name] from [bytes].
+     */
+    fun defineBytes(name: String, bytes: ByteArray): Class<*> =
+            this.defineClass(name, bytes, 0, bytes.size)
+}
@@ -0,0 +1,53 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import com.github.jonathanxd.adapterhelper.AdapterManager
+import com.github.jonathanxd.adapterhelper.Converter
+import kotlin.reflect.KClass
+
+/**
+ * Declares a conversion [from] type [to] type in an abstract method of adapter interface, implemented by
+ * [AdapterImplGen] with the [Converter] resolved (using [AdapterManager.getConverterUnchecked]) when the adapter
+ * is constructed, instead of looking it up in every call:
+ *
+ * - Methods without parameters that returns [Converter] returns the resolved converter.
+ * - Methods with a single parameter returns the parameter converted by the resolved converter.
+ *
+ * Converters are resolved in construction, so they must be registered before the adapters are created.
+ * Only supported in [Adapter][com.github.jonathanxd.adapterhelper.Adapter] interfaces generated
+ * by [DirectAdapterGen] (without additional handlers), the generation fails for other interfaces and for
+ * methods which return type is not assignable from [to].
+ *
+ * @property from Input type of the converter.
+ * @property to Output type of the converter.
+ */
+@MustBeDocumented
+@Retention(AnnotationRetention.RUNTIME)
+@Target(AnnotationTarget.FUNCTION)
+annotation class Convert(val from: KClass<*>, val to: KClass<*>)
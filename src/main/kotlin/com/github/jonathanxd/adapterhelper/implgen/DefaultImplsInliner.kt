@@ -0,0 +1,205 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import org.objectweb.asm.*
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+import java.util.*
+
+/**
+ * Inlines trivial Kotlin `DefaultImpls` methods into adapters generated by [DirectAdapterGen], instead of
+ * delegating to `DefaultImpls` (commonly `this.originalInstance.method(args)`).
+ *
+ * Only straight-line bodies (without branches, local variable stores, object creation or exception handlers)
+ * with at most [MAX_INSTRUCTIONS] instructions, that only access public members of public classes, are inlined.
+ *
+ * The inlining is enabled with `-Dadapterhelper.implgen.inline=true` (read once, when this class is initialized),
+ * methods inlined in implementations of an adapter interface are reported by [inlinedMethods].
+ */
+object DefaultImplsInliner {
+    const val INLINE = "adapterhelper.implgen.inline"
+
+    private const val MAX_INSTRUCTIONS = 32
+
+    private val ENABLED = System.getProperty(INLINE, "false")?.toBoolean() ?: false
+
+    @JvmStatic
+    fun isEnabled() = ENABLED
+
+    /**
+     * Inlinable bodies of `DefaultImpls` classes.
+     */
+    private val BODIES = object : ClassValue<Bodies>() {
+        override fun computeValue(type: Class<*>): Bodies = DefaultImplsInliner.read(type)
+    }
+
+    /**
+     * Reports of adapter interfaces, keyed by adaptee class (weakly, so adaptee classes can be unloaded).
+     */
+    private val REPORTS = object : ClassValue<MutableMap<Class<*>, List<String>>>() {
+        override fun computeValue(type: Class<*>): MutableMap<Class<*>, List<String>> =
+                Collections.synchronizedMap(WeakHashMap())
+    }
+
+    /**
+     * Methods (name and descriptor) inlined in the last implementation of [adapterInterface] for [adapteeClass]
+     * generated (or loaded from [BytecodeCache]) while the inlining was enabled. Implementations
+     * [pregenerated][AdapterPregenerator] are not reported, because they are generated in another process.
+     */
+    @JvmStatic
+    fun inlinedMethods(adapterInterface: Class<*>, adapteeClass: Class<*>): List<String> =
+            REPORTS.get(adapterInterface)[adapteeClass] ?: emptyList()
+
+    /**
+     * Instructions of [impl] body to inline, or `null` if [impl] is not trivial.
+     */
+    internal fun bodyOf(impl: Method): List<(MethodVisitor) -> Unit>? =
+            BODIES.get(impl.declaringClass).bodies[impl.name + Type.getMethodDescriptor(impl)]
+
+    /**
+     * Classes referenced by inlinable bodies of [defaultImpls] class, the inlining depends on their members.
+     */
+    internal fun referencesOf(defaultImpls: Class<*>): Set<Class<*>> = BODIES.get(defaultImpls).references
+
+    internal fun report(adapterInterface: Class<*>, adapteeClass: Class<*>, methods: List<String>) {
+        REPORTS.get(adapterInterface)[adapteeClass] = methods
+    }
+
+    private fun read(type: Class<*>): Bodies {
+        val loader = type.classLoader
+        val resource = Type.getInternalName(type) + ".class"
+        val bytes = (loader?.getResourceAsStream(resource) ?: ClassLoader.getSystemResourceAsStream(resource))
+                ?.use { it.readBytes() }
+                ?: return Bodies(emptyMap(), emptySet())
+
+        val bodies = mutableMapOf<String, List<(MethodVisitor) -> Unit>>()
+        val references = LinkedHashSet<Class<*>>()
+
+        ClassReader(bytes).accept(object : ClassVisitor(Opcodes.ASM6) {
+            override fun visitMethod(access: Int, name: String, descriptor: String,
+                                     signature: String?, exceptions: Array<out String>?): MethodVisitor? {
+                if (access and Opcodes.ACC_STATIC == 0)
+                    return null
+
+                return object : Recorder(loader) {
+                    override fun visitEnd() {
+                        if (this.inlinable) {
+                            bodies[name + descriptor] = this.instructions
+                            references += this.references
+                        }
+                    }
+                }
+            }
+        }, ClassReader.SKIP_DEBUG or ClassReader.SKIP_FRAMES)
+
+        return Bodies(bodies, references)
+    }
+
+    /**
+     * Inlinable [bodies] keyed by method name and descriptor, and classes [referenced][references] by them.
+     */
+    private class Bodies(val bodies: Map<String, List<(MethodVisitor) -> Unit>>, val references: Set<Class<*>>)
+
+    /**
+     * Records inlinable instructions, [inlinable] is `false` if any instruction can not be inlined.
+     */
+    private open class Recorder(val loader: ClassLoader?) : MethodVisitor(Opcodes.ASM6) {
+        val instructions = mutableListOf<(MethodVisitor) -> Unit>()
+        val references = mutableSetOf<Class<*>>()
+        var inlinable = true
+
+        private fun add(accept: Boolean, instruction: (MethodVisitor) -> Unit) {
+            if (accept && this.instructions.size < MAX_INSTRUCTIONS) this.instructions += instruction
+            else this.inlinable = false
+        }
+
+        override fun visitInsn(opcode: Int) =
+                this.add(opcode != Opcodes.ATHROW && opcode != Opcodes.MONITORENTER && opcode != Opcodes.MONITOREXIT) {
+                    it.visitInsn(opcode)
+                }
+
+        override fun visitIntInsn(opcode: Int, operand: Int) =
+                this.add(true) { it.visitIntInsn(opcode, operand) }
+
+        override fun visitVarInsn(opcode: Int, `var`: Int) =
+                this.add(opcode in Opcodes.ILOAD..Opcodes.ALOAD) { it.visitVarInsn(opcode, `var`) }
+
+        override fun visitTypeInsn(opcode: Int, type: String) =
+                this.add(opcode != Opcodes.NEW && this.isAccessible(Type.getObjectType(type))) {
+                    it.visitTypeInsn(opcode, type)
+                }
+
+        override fun visitFieldInsn(opcode: Int, owner: String, name: String, descriptor: String) =
+                this.add((opcode == Opcodes.GETFIELD || opcode == Opcodes.GETSTATIC)
+                        && this.classOf(Type.getObjectType(owner))?.takeIf { Modifier.isPublic(it.modifiers) }
+                        ?.fields?.any { it.name == name && Type.getDescriptor(it.type) == descriptor } == true) {
+                    it.visitFieldInsn(opcode, owner, name, descriptor)
+                }
+
+        override fun visitMethodInsn(opcode: Int, owner: String, name: String, descriptor: String, isInterface: Boolean) =
+                this.add(opcode != Opcodes.INVOKESPECIAL
+                        && this.classOf(Type.getObjectType(owner))?.takeIf { Modifier.isPublic(it.modifiers) }
+                        ?.methods?.any { it.name == name && Type.getMethodDescriptor(it) == descriptor } == true) {
+                    it.visitMethodInsn(opcode, owner, name, descriptor, isInterface)
+                }
+
+        override fun visitLdcInsn(value: Any) =
+                this.add(value is String || value is Number || (value is Type && this.isAccessible(value))) {
+                    it.visitLdcInsn(value)
+                }
+
+        override fun visitJumpInsn(opcode: Int, label: Label) = this.add(false) {}
+
+        override fun visitIincInsn(`var`: Int, increment: Int) = this.add(false) {}
+
+        override fun visitTableSwitchInsn(min: Int, max: Int, dflt: Label, vararg labels: Label) = this.add(false) {}
+
+        override fun visitLookupSwitchInsn(dflt: Label, keys: IntArray, labels: Array<out Label>) = this.add(false) {}
+
+        override fun visitMultiANewArrayInsn(descriptor: String, numDimensions: Int) = this.add(false) {}
+
+        override fun visitInvokeDynamicInsn(name: String, descriptor: String, bootstrapMethodHandle: Handle,
+                                            vararg bootstrapMethodArguments: Any) = this.add(false) {}
+
+        override fun visitTryCatchBlock(start: Label, end: Label, handler: Label?, type: String?) = this.add(false) {}
+
+        private fun isAccessible(type: Type): Boolean = when (type.sort) {
+            Type.ARRAY -> this.isAccessible(type.elementType)
+            Type.OBJECT -> this.classOf(type)?.let { Modifier.isPublic(it.modifiers) } ?: false
+            else -> true
+        }
+
+        private fun classOf(type: Type): Class<*>? =
+                try {
+                    Class.forName(type.className, false, this.loader).also { this.references += it }
+                } catch (e: ClassNotFoundException) {
+                    null
+                }
+    }
+}
@@ -0,0 +1,654 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import com.github.jonathanxd.adapterhelper.Adapter
+import com.github.jonathanxd.adapterhelper.AdapterManager
+import com.github.jonathanxd.adapterhelper.Converter
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.Type
+import java.lang.invoke.MethodHandles
+import java.lang.reflect.Method
+import java.lang.reflect.Modifier
+import java.util.function.Supplier
+
+/**
+ * Generates implementations of simple adapter interfaces straight to bytecode (using ASM), without building
+ * the Kores declaration tree of [AdapterImplGen].
+ *
+ * Simple adapter interfaces are those without [additional handlers][Additional] whose abstract methods are only
+ * instance and adapter manager getters, [Field] getters and setters, [Convert] methods and methods implemented
+ * in Kotlin `DefaultImpls`.
+ * Generated classes have the same shape of classes generated by Kores pipeline, and [generate] returns `null` for
+ * any other interface, which is then generated by Kores pipeline. Interfaces with methods only implemented by
+ * direct generation ([Convert], [Memoize] and [MemoizeAdapted]) are never sent to Kores pipeline, their generation
+ * fails instead.
+ *
+ * The direct generation can be disabled with `-Dadapterhelper.implgen.direct=false` (read once, when this class
+ * is initialized).
+ */
+object DirectAdapterGen {
+    const val DIRECT = "adapterhelper.implgen.direct"
+
+    private val ENABLED = System.getProperty(DIRECT, "true")?.toBoolean() ?: true
+
+    @JvmStatic
+    fun isEnabled() = ENABLED
+
+    private val OBJECT = Type.getInternalName(Any::class.java)
+
+    /**
+     * Annotations of methods only implemented by direct generation.
+     */
+    private val DIRECT_ONLY = listOf(Convert::class.java, Memoize::class.java, MemoizeAdapted::class.java)
+
+    /**
+     * Throws if [klass] has methods only implemented by direct generation (which would be left unimplemented
+     * by Kores pipeline), when the direct generation is not possible because of [reason].
+     */
+    internal fun checkNotRequired(klass: Class<*>, reason: String) {
+        val method = klass.methods.firstOrNull { method -> DIRECT_ONLY.any { method.isAnnotationPresent(it) } }
+                ?: return
+
+        throw IllegalArgumentException("The target '$klass' can not be generated directly ($reason), " +
+                "but method '${method.name}' is only implemented by direct generation.")
+    }
+
+    /**
+     * Generates the implementation of [klass] for [type] named [name], with additional [fields] (and `DefaultImpls`
+     * bodies [inlined][DefaultImplsInliner] if [inline] is `true`),
+     * or returns `null` if [klass] is not a simple adapter interface (see [checkNotRequired]).
+     */
+    internal fun generate(klass: Class<*>, type: Class<*>, fields: List<Field>, name: String, inline: Boolean): ByteArray? {
+        val shouldIncludeManager = Adapter::class.java.isAssignableFrom(klass)
+
+        val original = Slot(AdapterImplGen.originalInstanceField, type)
+        val manager = Slot(AdapterImplGen.adapterManagerField, AdapterManager::class.java)
+
+        val bodies = mutableMapOf<String, Pair<Method, Body>>()
+        val converters = linkedMapOf<Pair<Class<*>, Class<*>>, Slot>()
+        val memos = mutableListOf<Slot>()
+        val cached = mutableListOf<Cached>()
+
+        for (method in klass.methods) {
+            val memoize = method.getAnnotation(MemoizeAdapted::class.java)
+            val cache = method.getAnnotation(Memoize::class.java)
+
+            if (Modifier.isStatic(method.modifiers)
+                    || !Modifier.isAbstract(method.modifiers) && memoize == null && cache == null)
+                continue
+
+            if (memoize != null && cache != null)
+                throw IllegalArgumentException("Method '${method.name}' of '${method.declaringClass}' can not be " +
+                        "annotated with both @Memoize and @MemoizeAdapted.")
+
+            val key = method.name + Type.getMethodDescriptor(method).substringBefore(')')
+
+            val previous = bodies[key]?.first
+
+            if (previous != null) {
+                // Covariant overrides requires bridges, only generated by Kores pipeline.
+                if (previous.returnType != method.returnType)
+                    return this.fallback(klass, "method '${method.name}' is overridden covariantly")
+
+                continue
+            }
+
+            val computation = if (Modifier.isAbstract(method.modifiers))
+                this.bodyOf(klass, method, original, manager.takeIf { shouldIncludeManager }, fields, converters, inline)
+                        ?: return this.fallback(klass, "method '${method.name}' is not supported")
+            else Body.Super(klass)
+
+            val body = memoize?.let {
+                this.memoizedBodyOf(type, method, it, original, computation, memos)
+            } ?: cache?.let {
+                this.cachedBodyOf(method, it, computation, cached)
+            } ?: computation
+
+            bodies[key] = method to body
+        }
+
+        val internalName = name.replace('.', '/')
+        val cw = ClassWriter(ClassWriter.COMPUTE_MAXS)
+
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC or Opcodes.ACC_SUPER or Opcodes.ACC_SYNTHETIC,
+                internalName, null, OBJECT, arrayOf(Type.getInternalName(klass)))
+
+        val properties = if (shouldIncludeManager) listOf(original, manager) else listOf(original)
+
+        properties.forEach {
+            cw.visitField(Opcodes.ACC_PRIVATE or Opcodes.ACC_FINAL, it.name, it.descriptor, null, null).visitEnd()
+        }
+
+        fields.forEach {
+            val access = if (it.setter.isEmpty()) Opcodes.ACC_PRIVATE or Opcodes.ACC_FINAL else Opcodes.ACC_PRIVATE
+
+            cw.visitField(access, it.value, Type.getDescriptor(it.type.java), null, null).visitEnd()
+        }
+
+        converters.values.forEach {
+            cw.visitField(Opcodes.ACC_PRIVATE or Opcodes.ACC_FINAL, it.name, it.descriptor, null, null).visitEnd()
+        }
+
+        memos.forEach {
+            cw.visitField(Opcodes.ACC_PRIVATE or Opcodes.ACC_VOLATILE, it.name, it.descriptor, null, null).visitEnd()
+        }
+
+        cached.forEach {
+            cw.visitField(Opcodes.ACC_PRIVATE, it.value.name, it.value.descriptor, null, null).visitEnd()
+            cw.visitField(Opcodes.ACC_PRIVATE or Opcodes.ACC_VOLATILE, it.initialized.name, it.initialized.descriptor,
+                    null, null).visitEnd()
+            this.genComputeMethod(cw, internalName, it)
+        }
+
+        this.genConstructor(cw, internalName, properties, fields, converters, cached.filter { !it.lazy })
+
+        bodies.values.forEach { (method, body) ->
+            val mv = cw.visitMethod(Opcodes.ACC_PUBLIC, method.name, Type.getMethodDescriptor(method), null,
+                    method.exceptionTypes.map { Type.getInternalName(it) }.toTypedArray())
+
+            mv.visitCode()
+            body.generate(mv, internalName, method)
+            mv.visitMaxs(0, 0)
+            mv.visitEnd()
+        }
+
+        this.genLookupMethod(cw)
+
+        cw.visitEnd()
+
+        if (inline) {
+            DefaultImplsInliner.report(klass, type, bodies.values
+                    .filter { (_, body) -> body is Body.Static && body.inline != null }
+                    .map { (method, _) -> method.name + Type.getMethodDescriptor(method) })
+        }
+
+        return cw.toByteArray()
+    }
+
+    /**
+     * Returns `null` so [klass] is generated by Kores pipeline, or throws if it is not possible (see [checkNotRequired]).
+     */
+    private fun fallback(klass: Class<*>, reason: String): ByteArray? {
+        this.checkNotRequired(klass, reason)
+        return null
+    }
+
+    /**
+     * Resolves the body of [method] in the same order as [AdapterImplGen] `Implementer`.
+     */
+    private fun bodyOf(klass: Class<*>, method: Method, original: Slot, manager: Slot?, fields: List<Field>,
+                       converters: MutableMap<Pair<Class<*>, Class<*>>, Slot>, inline: Boolean): Body? {
+        val empty = method.parameterCount == 0
+
+        val slot = when {
+            empty && (method.name == AdapterImplGen.originalInstanceGet
+                    || method.name == AdapterImplGen.adapteeInstanceGet) -> original
+            empty && method.name == AdapterImplGen.adapterManagerGet && manager != null -> manager
+            empty -> fields.firstOrNull { it.getter == method.name }?.let { Slot(it.value, it.type.java) }
+            else -> null
+        }
+
+        if (slot != null)
+            return if (method.returnType.isAssignableFrom(slot.type)) Body.Get(slot) else null
+
+        method.getAnnotation(Convert::class.java)?.let {
+            return this.convertBodyOf(method, it, manager, converters)
+        }
+
+        if (method.parameterCount == 1) {
+            fields.firstOrNull { it.setter == method.name }?.let {
+                return if (method.returnType == Void.TYPE && it.type.java.isAssignableFrom(method.parameterTypes[0]))
+                    Body.Set(Slot(it.value, it.type.java))
+                else null
+            }
+        }
+
+        return AdapterImplGen.getDefaultImpl(klass, method)
+                ?.takeIf { method.returnType.isAssignableFrom(it.returnType) }
+                ?.let { Body.Static(it, if (inline) DefaultImplsInliner.bodyOf(it) else null) }
+    }
+
+    /**
+     * Resolves the body of [Convert] [method], the converter is bound to a field of [converters].
+     * Throws if [method] is not a valid [Convert] method.
+     */
+    private fun convertBodyOf(method: Method, convert: Convert, manager: Slot?,
+                              converters: MutableMap<Pair<Class<*>, Class<*>>, Slot>): Body {
+        val from = convert.from.java
+        val to = convert.to.java
+
+        fun invalid(reason: String): Nothing =
+                throw IllegalArgumentException("Invalid @Convert method '${method.name}' of '${method.declaringClass}': $reason.")
+
+        if (manager == null)
+            invalid("only supported in Adapter interfaces")
+
+        if (!Modifier.isPublic(from.modifiers) || !Modifier.isPublic(to.modifiers))
+            invalid("types '${from.name}' and '${to.name}' must be public")
+
+        val converter = { converters.getOrPut(from to to) { Slot("converter\$${converters.size}", Converter::class.java) } }
+
+        return when {
+            method.parameterCount == 0 && method.returnType.isAssignableFrom(Converter::class.java) ->
+                Body.Get(converter())
+            method.parameterCount == 1 && !method.parameterTypes[0].isPrimitive && !method.returnType.isPrimitive
+                    && from.isAssignableFrom(method.parameterTypes[0]) -> {
+                if (!method.returnType.isAssignableFrom(to))
+                    invalid("return type '${method.returnType.name}' is not assignable from '${to.name}'")
+
+                Body.Conversion(converter(), manager)
+            }
+            else -> invalid("expected either a Converter getter or a method that receives a non-primitive " +
+                    "'${from.name}' and returns a non-primitive type")
+        }
+    }
+
+    /**
+     * Resolves the body of [MemoizeAdapted] [method], which stores the value of [computation] along with the
+     * reference returned by [source][MemoizeAdapted.source] method of [type] in a field of [memos].
+     * Throws if [method] is not a valid [MemoizeAdapted] method.
+     */
+    private fun memoizedBodyOf(type: Class<*>, method: Method, memoize: MemoizeAdapted, original: Slot,
+                               computation: Body, memos: MutableList<Slot>): Body {
+        fun invalid(reason: String): Nothing =
+                throw IllegalArgumentException("Invalid @MemoizeAdapted method '${method.name}' of '${method.declaringClass}': $reason.")
+
+        if (computation !is Body.Delegate)
+            invalid("only default methods and methods implemented in DefaultImpls can be memoized")
+
+        if (method.parameterCount != 0)
+            invalid("methods with parameters can not be memoized")
+
+        if (method.returnType.isPrimitive)
+            invalid("methods that returns a primitive type can not be memoized")
+
+        if (!Modifier.isPublic(type.modifiers))
+            invalid("adaptee type '${type.name}' must be public")
+
+        val source = type.methods.firstOrNull {
+            it.name == memoize.source && it.parameterCount == 0 && !it.returnType.isPrimitive
+                    && !Modifier.isStatic(it.modifiers)
+        } ?: invalid("'${type.name}' has no public instance method '${memoize.source}' without parameters " +
+                "that returns a reference type")
+
+        val memo = Slot("${method.name}\$memo", Array<Any>::class.java)
+
+        memos += memo
+
+        return Body.Memoized(memo, original, source, computation)
+    }
+
+    /**
+     * Resolves the body of [Memoize] [method], the value of [computation] is stored in a field of [cached].
+     * Throws if [method] is not a valid [Memoize] method.
+     */
+    private fun cachedBodyOf(method: Method, memoize: Memoize, computation: Body, cached: MutableList<Cached>): Body {
+        fun invalid(reason: String): Nothing =
+                throw IllegalArgumentException("Invalid @Memoize method '${method.name}' of '${method.declaringClass}': $reason.")
+
+        if (computation !is Body.Delegate)
+            invalid("only default methods and methods implemented in DefaultImpls can be memoized")
+
+        if (method.parameterCount != 0)
+            invalid("methods with parameters can not be memoized")
+
+        if (method.returnType == Void.TYPE)
+            invalid("void methods can not be memoized")
+
+        val value = Slot("${method.name}\$memo", method.returnType)
+        val initialized = Slot("${method.name}\$initialized", java.lang.Boolean.TYPE)
+        val cache = Cached(method, value, initialized, computation, memoize.lazy)
+
+        cached += cache
+
+        return Body.LazyGet(cache)
+    }
+
+    /**
+     * Generates the synchronized method that computes the value of [cache] if it was not computed yet.
+     */
+    private fun genComputeMethod(cw: ClassWriter, owner: String, cache: Cached) {
+        val initialized = cache.initialized
+        val done = Label()
+        val mv = cw.visitMethod(Opcodes.ACC_PRIVATE or Opcodes.ACC_SYNCHRONIZED or Opcodes.ACC_SYNTHETIC,
+                cache.computeMethod, "()V", null, null)
+
+        mv.visitCode()
+        mv.visitVarInsn(Opcodes.ALOAD, 0)
+        mv.visitFieldInsn(Opcodes.GETFIELD, owner, initialized.name, initialized.descriptor)
+        mv.visitJumpInsn(Opcodes.IFNE, done)
+
+        mv.visitVarInsn(Opcodes.ALOAD, 0)
+        cache.computation.push(mv, cache.method)
+        mv.visitFieldInsn(Opcodes.PUTFIELD, owner, cache.value.name, cache.value.descriptor)
+
+        // Volatile write after the value, readers that see the flag also see the value.
+        mv.visitVarInsn(Opcodes.ALOAD, 0)
+        mv.visitInsn(Opcodes.ICONST_1)
+        mv.visitFieldInsn(Opcodes.PUTFIELD, owner, initialized.name, initialized.descriptor)
+
+        mv.visitLabel(done)
+        mv.visitFrame(Opcodes.F_SAME, 0, null, 0, null)
+        mv.visitInsn(Opcodes.RETURN)
+        mv.visitMaxs(0, 0)
+        mv.visitEnd()
+    }
+
+    private fun genConstructor(cw: ClassWriter, owner: String, properties: List<Slot>, fields: List<Field>,
+                               converters: Map<Pair<Class<*>, Class<*>>, Slot>, eager: List<Cached>) {
+        val descriptor = Type.getMethodDescriptor(Type.VOID_TYPE, *properties.map { Type.getType(it.type) }.toTypedArray())
+        val mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", descriptor, null, null)
+
+        mv.visitCode()
+        mv.visitVarInsn(Opcodes.ALOAD, 0)
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false)
+
+        properties.forEachIndexed { index, it ->
+            mv.visitVarInsn(Opcodes.ALOAD, 0)
+            mv.visitVarInsn(Opcodes.ALOAD, index + 1)
+            mv.visitFieldInsn(Opcodes.PUTFIELD, owner, it.name, it.descriptor)
+        }
+
+        fields.filter { it.defaultValueProvider != NullProvider::class }.forEach {
+            val provider = Type.getInternalName(it.defaultValueProvider.java)
+
+            mv.visitVarInsn(Opcodes.ALOAD, 0)
+            mv.visitFieldInsn(Opcodes.GETSTATIC, provider, "INSTANCE", "L$provider;")
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(Supplier::class.java), "get",
+                    "()L$OBJECT;", true)
+            this.cast(mv, it.type.java)
+            mv.visitFieldInsn(Opcodes.PUTFIELD, owner, it.value, Type.getDescriptor(it.type.java))
+        }
+
+        // Converters are resolved only once, using the adapter manager received in the constructor.
+        converters.forEach { (types, slot) ->
+            mv.visitVarInsn(Opcodes.ALOAD, 0)
+            mv.visitVarInsn(Opcodes.ALOAD, 2)
+            mv.visitLdcInsn(Type.getType(types.first))
+            mv.visitLdcInsn(Type.getType(types.second))
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(AdapterManager::class.java),
+                    "getConverterUnchecked", Type.getMethodDescriptor(Type.getType(Converter::class.java),
+                    Type.getType(Class::class.java), Type.getType(Class::class.java)), false)
+            mv.visitFieldInsn(Opcodes.PUTFIELD, owner, slot.name, slot.descriptor)
+        }
+
+        // Eager values are computed last, when all other fields are initialized. Eager values are computed
+        // through the lazy path, so values read by the computation of other values are computed on demand
+        // regardless of the order of methods.
+        eager.forEach {
+            mv.visitVarInsn(Opcodes.ALOAD, 0)
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, owner, it.computeMethod, "()V", false)
+        }
+
+        mv.visitInsn(Opcodes.RETURN)
+        mv.visitMaxs(0, 0)
+        mv.visitEnd()
+    }
+
+    /**
+     * Casts the value in the stack to [type], unboxing it if [type] is primitive.
+     */
+    private fun cast(mv: MethodVisitor, type: Class<*>) {
+        if (!type.isPrimitive) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type))
+            return
+        }
+
+        val wrapper = Type.getInternalName(type.kotlin.javaObjectType)
+
+        mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper)
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, "${type.name}Value", "()${Type.getDescriptor(type)}", false)
+    }
+
+    /**
+     * Generates the [lookup method][AdapterFactories.LOOKUP_METHOD] used by [AdapterFactories].
+     */
+    private fun genLookupMethod(cw: ClassWriter) {
+        val lookup = Type.getType(MethodHandles.Lookup::class.java)
+        val mv = cw.visitMethod(Opcodes.ACC_PRIVATE or Opcodes.ACC_STATIC or Opcodes.ACC_SYNTHETIC,
+                AdapterFactories.LOOKUP_METHOD, Type.getMethodDescriptor(lookup), null, null)
+
+        mv.visitCode()
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(MethodHandles::class.java), "lookup",
+                Type.getMethodDescriptor(lookup), false)
+        mv.visitInsn(Opcodes.ARETURN)
+        mv.visitMaxs(0, 0)
+        mv.visitEnd()
+    }
+
+    /**
+     * Field of generated class.
+     */
+    private class Slot(val name: String, val type: Class<*>) {
+        val descriptor: String = Type.getDescriptor(this.type)
+    }
+
+    /**
+     * Value of [Memoize] [method] stored in [value] field, [initialized] is the flag set once the value is computed,
+     * in the first call if [lazy] or in the construction otherwise.
+     */
+    private class Cached(val method: Method, val value: Slot, val initialized: Slot, val computation: Body.Delegate,
+                         val lazy: Boolean) {
+        val computeMethod = "${this.method.name}\$compute"
+    }
+
+    /**
+     * Body of an implemented method.
+     */
+    private sealed class Body {
+        abstract fun generate(mv: MethodVisitor, owner: String, method: Method)
+
+        /**
+         * Returns the value of [slot].
+         */
+        class Get(val slot: Slot) : Body() {
+            override fun generate(mv: MethodVisitor, owner: String, method: Method) {
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitFieldInsn(Opcodes.GETFIELD, owner, this.slot.name, this.slot.descriptor)
+                mv.visitInsn(Type.getType(method.returnType).getOpcode(Opcodes.IRETURN))
+            }
+        }
+
+        /**
+         * Sets the value of [slot] to the method argument.
+         */
+        class Set(val slot: Slot) : Body() {
+            override fun generate(mv: MethodVisitor, owner: String, method: Method) {
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitVarInsn(Type.getType(method.parameterTypes[0]).getOpcode(Opcodes.ILOAD), 1)
+                mv.visitFieldInsn(Opcodes.PUTFIELD, owner, this.slot.name, this.slot.descriptor)
+                mv.visitInsn(Opcodes.RETURN)
+            }
+        }
+
+        /**
+         * Converts the method argument with the [converter], resolved in the construction.
+         */
+        class Conversion(val converter: Slot, val manager: Slot) : Body() {
+            override fun generate(mv: MethodVisitor, owner: String, method: Method) {
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitFieldInsn(Opcodes.GETFIELD, owner, this.converter.name, this.converter.descriptor)
+                mv.visitVarInsn(Opcodes.ALOAD, 1)
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitFieldInsn(Opcodes.GETFIELD, owner, this.manager.name, this.manager.descriptor)
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, Type.getInternalName(Converter::class.java), "convert",
+                        Type.getMethodDescriptor(Type.getType(Any::class.java), Type.getType(Any::class.java),
+                                Type.getType(Adapter::class.java), Type.getType(AdapterManager::class.java)), true)
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(method.returnType))
+                mv.visitInsn(Opcodes.ARETURN)
+            }
+        }
+
+        /**
+         * Body that delegates to an implementation of the interface, [push] leaves the returned value in the stack.
+         */
+        abstract class Delegate : Body() {
+            abstract fun push(mv: MethodVisitor, method: Method)
+
+            override fun generate(mv: MethodVisitor, owner: String, method: Method) {
+                this.push(mv, method)
+                mv.visitInsn(Type.getType(method.returnType).getOpcode(Opcodes.IRETURN))
+            }
+
+            /**
+             * Loads `this` and method arguments.
+             */
+            protected fun loadArguments(mv: MethodVisitor, method: Method) {
+                var index = 1
+
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+
+                method.parameterTypes.map { Type.getType(it) }.forEach {
+                    mv.visitVarInsn(it.getOpcode(Opcodes.ILOAD), index)
+                    index += it.size
+                }
+            }
+        }
+
+        /**
+         * Delegates to the static [impl] (of Kotlin `DefaultImpls`) passing `this` and method arguments,
+         * or copies the [inline] instructions of [impl] body (see [DefaultImplsInliner]).
+         */
+        class Static(val impl: Method, val inline: List<(MethodVisitor) -> Unit>?) : Delegate() {
+            override fun generate(mv: MethodVisitor, owner: String, method: Method) {
+                // DefaultImpls receives `this` and the method arguments in the same local variable slots.
+                this.inline?.let { instructions ->
+                    instructions.forEach { it(mv) }
+                    return
+                }
+
+                super.generate(mv, owner, method)
+            }
+
+            override fun push(mv: MethodVisitor, method: Method) {
+                this.loadArguments(mv, method)
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(this.impl.declaringClass),
+                        this.impl.name, Type.getMethodDescriptor(this.impl), false)
+            }
+        }
+
+        /**
+         * Invokes the default implementation of the method in [itf].
+         */
+        class Super(val itf: Class<*>) : Delegate() {
+            override fun push(mv: MethodVisitor, method: Method) {
+                this.loadArguments(mv, method)
+                mv.visitMethodInsn(Opcodes.INVOKESPECIAL, Type.getInternalName(this.itf), method.name,
+                        Type.getMethodDescriptor(method), true)
+            }
+        }
+
+        /**
+         * Returns the value of [cache], computing it first if the [initialization flag][Cached.initialized]
+         * is not set.
+         */
+        class LazyGet(val cache: Cached) : Body() {
+            override fun generate(mv: MethodVisitor, owner: String, method: Method) {
+                val initialized = this.cache.initialized
+                val ready = Label()
+
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitFieldInsn(Opcodes.GETFIELD, owner, initialized.name, initialized.descriptor)
+                mv.visitJumpInsn(Opcodes.IFNE, ready)
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitMethodInsn(Opcodes.INVOKESPECIAL, owner, this.cache.computeMethod, "()V", false)
+
+                mv.visitLabel(ready)
+                mv.visitFrame(Opcodes.F_SAME, 0, null, 0, null)
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitFieldInsn(Opcodes.GETFIELD, owner, this.cache.value.name, this.cache.value.descriptor)
+                mv.visitInsn(Type.getType(method.returnType).getOpcode(Opcodes.IRETURN))
+            }
+        }
+
+        /**
+         * Returns the value of [computation] stored in [memo] (as an array of the [source] reference and the value),
+         * computing it again only if [source] method of [original] instance returns another reference.
+         *
+         * The array is never modified after being stored in the volatile [memo], so concurrent readers
+         * always see a consistent pair.
+         */
+        class Memoized(val memo: Slot, val original: Slot, val source: Method, val computation: Delegate) : Body() {
+            override fun generate(mv: MethodVisitor, owner: String, method: Method) {
+                val recompute = Label()
+                val done = Label()
+                val locals = arrayOf<Any>(owner, OBJECT, this.memo.type.name.replace('.', '/'))
+
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitFieldInsn(Opcodes.GETFIELD, owner, this.original.name, this.original.descriptor)
+                mv.visitMethodInsn(if (this.original.type.isInterface) Opcodes.INVOKEINTERFACE else Opcodes.INVOKEVIRTUAL,
+                        Type.getInternalName(this.original.type), this.source.name,
+                        Type.getMethodDescriptor(this.source), this.original.type.isInterface)
+                mv.visitVarInsn(Opcodes.ASTORE, 1)
+
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitFieldInsn(Opcodes.GETFIELD, owner, this.memo.name, this.memo.descriptor)
+                mv.visitVarInsn(Opcodes.ASTORE, 2)
+
+                mv.visitVarInsn(Opcodes.ALOAD, 2)
+                mv.visitJumpInsn(Opcodes.IFNULL, recompute)
+                mv.visitVarInsn(Opcodes.ALOAD, 2)
+                mv.visitInsn(Opcodes.ICONST_0)
+                mv.visitInsn(Opcodes.AALOAD)
+                mv.visitVarInsn(Opcodes.ALOAD, 1)
+                mv.visitJumpInsn(Opcodes.IF_ACMPEQ, done)
+
+                // Frames are written by hand, the class writer only computes maximums.
+                mv.visitLabel(recompute)
+                mv.visitFrame(Opcodes.F_FULL, locals.size, locals, 0, arrayOf())
+                mv.visitInsn(Opcodes.ICONST_2)
+                mv.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT)
+                mv.visitInsn(Opcodes.DUP)
+                mv.visitInsn(Opcodes.ICONST_0)
+                mv.visitVarInsn(Opcodes.ALOAD, 1)
+                mv.visitInsn(Opcodes.AASTORE)
+                mv.visitInsn(Opcodes.DUP)
+                mv.visitInsn(Opcodes.ICONST_1)
+                this.computation.push(mv, method)
+                mv.visitInsn(Opcodes.AASTORE)
+                mv.visitVarInsn(Opcodes.ASTORE, 2)
+                mv.visitVarInsn(Opcodes.ALOAD, 0)
+                mv.visitVarInsn(Opcodes.ALOAD, 2)
+                mv.visitFieldInsn(Opcodes.PUTFIELD, owner, this.memo.name, this.memo.descriptor)
+
+                mv.visitLabel(done)
+                mv.visitFrame(Opcodes.F_FULL, locals.size, locals, 0, arrayOf())
+                mv.visitVarInsn(Opcodes.ALOAD, 2)
+                mv.visitInsn(Opcodes.ICONST_1)
+                mv.visitInsn(Opcodes.AALOAD)
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(method.returnType))
+                mv.visitInsn(Opcodes.ARETURN)
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import com.github.jonathanxd.adapterhelper.Adapter
+import com.github.jonathanxd.adapterhelper.AdapterManager
+import com.github.jonathanxd.adapterhelper.implgen.add.AdditionalHandler
+import java.util.concurrent.*
+import java.util.stream.Collectors
+
+/**
+ * Scope of classes generated by [AdapterImplGen], each scope defines generated classes in its own class loader.
+ *
+ * Classes are never unloaded while the scope is reachable, but once the scope, generated classes and their instances
+ * are no longer referenced, the class loader and all generated classes can be unloaded (and their Metaspace reclaimed).
+ * A scope is commonly owned by an [AdapterManager] (see [AdapterManager.generationScope]) or shared by a group
+ * of managers that are dropped together (for example, managers of a reloadable plugin).
+ *
+ * [AdapterImplGen.genImpl] defines classes in the [global scope][AdapterImplGen.globalScope], which is never unloaded.
+ *
+ * @param parent Class loader used to load classes referenced by generated classes that are not visible
+ * to the class loader of AdapterHelper (for example, adapter interfaces of plugins).
+ */
+class GenerationScope @JvmOverloads constructor(val parent: ClassLoader? = null) {
+
+    // Lazy, so the loader is never created in closed-world mode.
+    private val definer by lazy { BytesCodeClassLoader(this.parent) }
+
+    private val loader by lazy { SaveCapableCodeClassLoader(this.definer) }
+
+    /**
+     * Classes generated by [genImpl] (or being generated).
+     */
+    private val generated = ConcurrentHashMap<AdapterImplGen.GenKey, CompletableFuture<Class<*>>>()
+
+    /**
+     * Generate implementation of an [Adapter] interface with two-arg constructor
+     * that receives either [T] and [AdapterManager], and defines it in this scope.
+     *
+     * The implementation is generated only once per scope for each [klass], [type] and [additionalHandlers_],
+     * subsequent calls returns the same class. This function is thread-safe, concurrent calls with the same arguments
+     * waits the class generated by the first call.
+     */
+    @Suppress("UNCHECKED_CAST")
+    @JvmOverloads
+    fun <F : Any, T : Any> genImpl(
+            klass: Class<out F>, type: Class<T>,
+            additionalHandlers_: List<AdditionalHandler> = emptyList()
+    ): Class<out F> {
+        AdapterImplGen.checkOpenWorld()
+
+        val key = AdapterImplGen.GenKey(klass, type, additionalHandlers_.toList())
+        val future = CompletableFuture<Class<*>>()
+        val current = this.generated.putIfAbsent(key, future)
+
+        if (current == null) {
+            try {
+                val generation = AdapterImplGen.prepare(key)
+
+                future.complete(synchronized(this.loader) { this.define(key, generation) })
+            } catch (t: Throwable) {
+                future.completeExceptionally(t)
+            }
+        }
+
+        return this.await(key, current ?: future) as Class<out F>
+    }
+
+    /**
+     * Generates implementations of all [requests] (as specified in [genImpl]) in parallel using [pool],
+     * and returns generated classes in the same order as [requests].
+     *
+     * Classes are generated concurrently and defined in batches, already generated classes are reused.
+     */
+    @JvmOverloads
+    fun genImplAll(requests: List<ImplRequest>, pool: ForkJoinPool = ForkJoinPool.commonPool()): List<Class<*>> {
+        AdapterImplGen.checkOpenWorld()
+
+        val keys = requests.map { AdapterImplGen.GenKey(it.klass, it.type, it.additionalHandlers.toList()) }
+        val owned = mutableListOf<Pair<AdapterImplGen.GenKey, CompletableFuture<Class<*>>>>()
+
+        val futures = keys.map { key ->
+            val future = CompletableFuture<Class<*>>()
+
+            this.generated.putIfAbsent(key, future) ?: future.also { owned += key to it }
+        }
+
+        try {
+            // Parallel stream started inside of the pool runs in the pool.
+            val generations = pool.submit(Callable {
+                owned.parallelStream().map { (key, future) ->
+                    try {
+                        AdapterImplGen.prepare(key)
+                    } catch (t: Throwable) {
+                        future.completeExceptionally(t)
+                        null
+                    }
+                }.collect(Collectors.toList())
+            }).get()
+
+            owned.indices.chunked(DEFINE_BATCH_SIZE).forEach { batch ->
+                synchronized(this.loader) {
+                    batch.forEach { index ->
+                        val future = owned[index].second
+
+                        generations[index]?.let {
+                            try {
+                                future.complete(this.define(owned[index].first, it))
+                            } catch (t: Throwable) {
+                                future.completeExceptionally(t)
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            // Never leave other callers waiting a generation that will not happen.
+            owned.forEach { (key, future) ->
+                if (!future.isDone)
+                    future.completeExceptionally(IllegalStateException("Generation of '${key.klass}' was interrupted."))
+            }
+        }
+
+        return keys.mapIndexed { index, key -> this.await(key, futures[index]) }
+    }
+
+    /**
+     * Waits the generation of [key] and returns generated class, or rethrows the generation failure.
+     */
+    private fun await(key: AdapterImplGen.GenKey, future: CompletableFuture<Class<*>>): Class<*> =
+            try {
+                future.join()
+            } catch (e: CompletionException) {
+                // Allows failed generation to be retried.
+                this.generated.remove(key, future)
+                throw e.cause ?: e
+            }
+
+    /**
+     * Defines the class of [generation] of [key] and stores generated bytecode in [AdapterImplGen.bytecodeCache].
+     * Must be called while holding the lock of [loader].
+     */
+    private fun define(key: AdapterImplGen.GenKey, generation: AdapterImplGen.Generation): Class<*> {
+        val fingerprint = generation.fingerprint
+
+        generation.entry?.let {
+            return try {
+                this.definer.defineBytes(it.name, it.bytes).also { _ ->
+                    if (DefaultImplsInliner.isEnabled())
+                        DefaultImplsInliner.report(key.klass, key.type, it.inlined)
+                }
+            } catch (e: ClassFormatError) {
+                // Corrupted entry, generates again
+                this.define(key, AdapterImplGen.Generation(fingerprint, null, AdapterImplGen.generate(key, fingerprint)))
+            }
+        }
+
+        val bytecode = generation.bytecode!!
+
+        return this.loader.define(bytecode).also {
+            // The report only depends on the interface, the adaptee and the inlining option (which are part of
+            // the fingerprint), so the current report is the report of this generation.
+            if (fingerprint != null && bytecode.size == 1)
+                AdapterImplGen.bytecodeCache?.store(fingerprint, it.name, bytecode.single().bytecode,
+                        if (DefaultImplsInliner.isEnabled()) DefaultImplsInliner.inlinedMethods(key.klass, key.type) else emptyList())
+        }
+    }
+
+    companion object {
+        /**
+         * Amount of classes defined by [genImplAll] in each [loader] lock acquisition.
+         */
+        private const val DEFINE_BATCH_SIZE = 32
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+/**
+ * Caches the value returned by annotated method of adapter interface (a default method or a method implemented
+ * in Kotlin `DefaultImpls`) in a private field of generated class, so the value is computed only once per adapter
+ * instance. Primitive values are stored in fields of the primitive type, without boxing.
+ *
+ * By default the value is computed when the adapter is constructed (after all other fields are initialized). If [lazy]
+ * is `true`, the value is computed in the first call instead. In both cases the value is computed under the lock
+ * of the adapter instance and published to concurrent readers through a volatile initialization flag, and memoized
+ * methods called by the computation are computed on demand, so memoized values may depend on each other.
+ *
+ * Implemented by [DirectAdapterGen] for methods without parameters that does not return `void`. The generation fails
+ * for methods of other shapes, methods also annotated with [MemoizeAdapted] and interfaces that can not be generated
+ * by [DirectAdapterGen] (for example, interfaces with additional handlers).
+ *
+ * @property lazy Whether the value should be computed in the first call instead of in the construction.
+ */
+@MustBeDocumented
+@Retention(AnnotationRetention.RUNTIME)
+@Target(AnnotationTarget.FUNCTION)
+annotation class Memoize(val lazy: Boolean = false)
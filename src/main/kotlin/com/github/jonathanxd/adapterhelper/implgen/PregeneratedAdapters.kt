@@ -0,0 +1,109 @@
+/**
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.implgen
+
+import java.util.*
+
+/**
+ * Lookup of adapter implementations generated ahead-of-time by [AdapterPregenerator], registered in
+ * [INDEX] resources. This class does not depend on Kores.
+ */
+object PregeneratedAdapters {
+
+    /**
+     * Location of index resources, each line of an index is an [Entry] in the format:
+     * `adapterInterface adapterClass adapteeClass implementation`.
+     */
+    const val INDEX = "META-INF/adapterhelper/adapters.index"
+
+    /**
+     * Entries of [INDEX] resources visible to each class loader.
+     */
+    private val indexes = WeakHashMap<ClassLoader, List<Entry>>()
+
+    /**
+     * Gets the pregenerated implementation of [adapterInterface] for [adapteeClass], or null if there is no
+     * pregenerated implementation.
+     */
+    @JvmStatic
+    fun find(adapterInterface: Class<*>, adapteeClass: Class<*>): Class<*>? {
+        val loader = adapterInterface.loader
+
+        return this.entries(loader).firstOrNull {
+            it.adapterInterface == adapterInterface.name && it.adapteeClass == adapteeClass.name
+        }?.let {
+            Class.forName(it.implementation, true, loader)
+        }
+    }
+
+    /**
+     * Gets all entries of [INDEX] resources visible to [loader].
+     */
+    @JvmStatic
+    fun entries(loader: ClassLoader): List<Entry> =
+            synchronized(this.indexes) {
+                this.indexes.getOrPut(loader) { this.read(loader) }
+            }
+
+    private fun read(loader: ClassLoader): List<Entry> {
+        val entries = mutableListOf<Entry>()
+
+        loader.getResources(INDEX).asSequence().forEach { url ->
+            url.openStream().bufferedReader(Charsets.UTF_8).useLines { lines ->
+                lines.map(String::trim).filter { it.isNotEmpty() && !it.startsWith("#") }.forEach {
+                    val parts = it.split(' ')
+
+                    if (parts.size != 4)
+                        throw IllegalStateException("Malformed entry '$it' of adapter index '$url'.")
+
+                    entries += Entry(parts[0], parts[1], parts[2], parts[3])
+                }
+            }
+        }
+
+        return entries
+    }
+
+    private val Class<*>.loader: ClassLoader
+        get() = this.classLoader ?: ClassLoader.getSystemClassLoader()
+
+    /**
+     * Entry of [INDEX].
+     *
+     * @property adapterInterface Name of adapter interface.
+     * @property adapterClass Name of adapter class.
+     * @property adapteeClass Name of adaptee class.
+     * @property implementation Name of pregenerated implementation of [adapterInterface].
+     */
+    data class Entry(val adapterInterface: String,
+                     val adapterClass: String,
+                     val adapteeClass: String,
+                     val implementation: String) {
+        override fun toString(): String = "$adapterInterface $adapterClass $adapteeClass $implementation"
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.implgen.AdapterImplGen;
+import com.github.jonathanxd.adapterhelper.implgen.ImplRequest;
+import com.github.jonathanxd.adapterhelper.implgen.add.AdditionalHandlerHelper;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class AdapterImplGenTest {
+
+    @Test
+    public void genImplIsCached() {
+        Class<?> first = AdapterImplGen.genImpl(DynamicFieldTest.MyAdapter.class, Lib1_Person.class);
+        Class<?> second = AdapterImplGen.genImpl(DynamicFieldTest.MyAdapter.class, Lib1_Person.class);
+
+        Assert.assertSame(first, second);
+    }
+
+    @Test
+    public void genImplAll() {
+        List<Class<?>> classes = AdapterImplGen.genImplAll(Arrays.asList(
+                new ImplRequest(DynamicFieldTest.MyAdapter.class, Lib1_Person.class),
+                new ImplRequest(AddTest.MyAdapter.class, Lib1_Person.class)));
+
+        Assert.assertEquals(2, classes.size());
+        Assert.assertTrue(DynamicFieldTest.MyAdapter.class.isAssignableFrom(classes.get(0)));
+        Assert.assertTrue(AddTest.MyAdapter.class.isAssignableFrom(classes.get(1)));
+        Assert.assertSame(classes.get(0), AdapterImplGen.genImpl(DynamicFieldTest.MyAdapter.class, Lib1_Person.class));
+    }
+
+    @Test
+    public void additionalHandlersAreCached() {
+        Assert.assertSame(AdditionalHandlerHelper.from(ImplAddTest.class), AdditionalHandlerHelper.from(ImplAddTest.class));
+    }
+}
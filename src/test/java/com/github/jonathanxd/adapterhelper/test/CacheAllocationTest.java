@@ -0,0 +1,105 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.AdapterSpecification;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+public class CacheAllocationTest {
+
+    private static final int ITERATIONS = 1_000_000;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void cacheHitDoesNotAllocate() {
+        ThreadMXBean mxBean = ManagementFactory.getThreadMXBean();
+
+        Assume.assumeTrue(mxBean instanceof com.sun.management.ThreadMXBean);
+
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) mxBean;
+
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        AdapterManager adapterManager = AdapterManager.create();
+
+        AdapterSpecification<OldPerson, Object> adapterSpecification =
+                (AdapterSpecification) AdapterSpecification.create(SimpleAdapter::new, SimpleAdapter.class, OldPerson.class);
+
+        adapterManager.register(adapterSpecification);
+
+        OldPerson oldPerson = new OldPerson("Josh", 32);
+
+        Object adapter = adapterManager.adaptSingleAsAnyUnchecked(oldPerson, adapterSpecification);
+
+        assertNoAllocation(threadMXBean, "adaptSingleAsAnyUnchecked", adapter,
+                () -> adapterManager.adaptSingleAsAnyUnchecked(oldPerson, adapterSpecification));
+
+        // Resolves the specification (cached per adaptee class) before adapting.
+        assertNoAllocation(threadMXBean, "adaptUnchecked", adapter,
+                () -> adapterManager.adaptUnchecked(OldPerson.class, oldPerson, Person.class));
+    }
+
+    private static void assertNoAllocation(com.sun.management.ThreadMXBean threadMXBean,
+                                           String api,
+                                           Object adapter,
+                                           Supplier<Object> adapt) {
+        // Warm up, lets JIT compile the hit path.
+        Assert.assertEquals(ITERATIONS, hit(adapt, adapter));
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        int hits = hit(adapt, adapter);
+
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        Assert.assertEquals(ITERATIONS, hits);
+        Assert.assertTrue("Cache hits of " + api + " allocated " + allocated + " bytes", allocated < ITERATIONS);
+    }
+
+    private static int hit(Supplier<Object> adapt, Object adapter) {
+        int hits = 0;
+
+        for (int i = 0; i < ITERATIONS; ++i) {
+            if (adapt.get() == adapter)
+                ++hits;
+        }
+
+        return hits;
+    }
+}
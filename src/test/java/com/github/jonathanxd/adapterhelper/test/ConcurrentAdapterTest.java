@@ -0,0 +1,193 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.AdapterSpecification;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class ConcurrentAdapterTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void createOnce() throws Exception {
+        AdapterManager adapterManager = AdapterManager.createConcurrent();
+
+        AtomicInteger created = new AtomicInteger();
+
+        adapterManager.register(AdapterSpecification.create((oldPerson, manager) -> {
+            created.incrementAndGet();
+            // Keeps the creation slow enough to other threads miss the cache.
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            return new SimpleAdapter(oldPerson, manager);
+        }, SimpleAdapter.class, OldPerson.class));
+
+        OldPerson oldPerson = new OldPerson("Josh", 32);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+
+        try {
+            List<Future<Person>> futures = new ArrayList<>();
+
+            for (int i = 0; i < THREADS; ++i) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    return adapterManager.adaptUnchecked(OldPerson.class, oldPerson, Person.class);
+                }));
+            }
+
+            Person first = futures.get(0).get();
+
+            for (Future<Person> future : futures) {
+                Assert.assertSame(first, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals(1, created.get());
+    }
+
+    @Test
+    public void registerWhileAdapting() throws Exception {
+        AdapterManager adapterManager = AdapterManager.createConcurrent();
+
+        adapterManager.register(AdapterSpecification.create(SimpleAdapter::new, SimpleAdapter.class, OldPerson.class));
+
+        List<OldPerson> oldPersons = new ArrayList<>();
+
+        for (int i = 0; i < 100; ++i) {
+            oldPersons.add(new OldPerson("Person " + i, i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < THREADS; ++i) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; ++j) {
+                        for (OldPerson oldPerson : oldPersons) {
+                            Person person = adapterManager.adaptUnchecked(OldPerson.class, oldPerson, Person.class);
+
+                            Assert.assertEquals(oldPerson.i(), person.getAge());
+                        }
+                    }
+                }));
+            }
+
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 1000; ++j) {
+                    AdapterSpecification<Text, SimpleAdapter> specification =
+                            AdapterSpecification.create((text, manager) -> null, SimpleAdapter.class, Text.class);
+
+                    adapterManager.register(specification);
+                    adapterManager.unregister(specification);
+                }
+            }));
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recursiveCreation() {
+        AdapterManager adapterManager = new AdapterManager();
+
+        adapterManager.register(AdapterSpecification.create((oldPerson, manager) -> {
+            manager.adaptUnchecked(OldPerson.class, oldPerson, Person.class);
+            return new SimpleAdapter(oldPerson, manager);
+        }, SimpleAdapter.class, OldPerson.class));
+
+        adapterManager.adaptUnchecked(OldPerson.class, new OldPerson("Josh", 32), Person.class);
+    }
+
+    @Test
+    public void mutuallyDependentCreation() throws Exception {
+        AdapterManager adapterManager = AdapterManager.createConcurrent();
+
+        OldPerson josh = new OldPerson("Josh", 32);
+        OldPerson mary = new OldPerson("Mary", 19);
+        CountDownLatch creating = new CountDownLatch(2);
+
+        adapterManager.register(AdapterSpecification.create((oldPerson, manager) -> {
+            // Both adapters are being created before each one adapts the other.
+            creating.countDown();
+
+            try {
+                creating.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+
+            manager.adaptUnchecked(OldPerson.class, oldPerson == josh ? mary : josh, Person.class);
+            return new SimpleAdapter(oldPerson, manager);
+        }, SimpleAdapter.class, OldPerson.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            List<Future<Person>> futures = new ArrayList<>();
+
+            futures.add(executor.submit(() -> adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class)));
+            futures.add(executor.submit(() -> adapterManager.adaptUnchecked(OldPerson.class, mary, Person.class)));
+
+            for (Future<Person> future : futures) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                    Assert.fail("Creation of mutually dependent adapters should fail.");
+                } catch (ExecutionException e) {
+                    Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
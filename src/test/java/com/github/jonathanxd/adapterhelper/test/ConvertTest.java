@@ -0,0 +1,133 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.Adapter;
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.AdapterSpecification;
+import com.github.jonathanxd.adapterhelper.Converter;
+import com.github.jonathanxd.adapterhelper.implgen.Additional;
+import com.github.jonathanxd.adapterhelper.implgen.Convert;
+import com.github.jonathanxd.adapterhelper.implgen.Field;
+import com.github.jonathanxd.adapterhelper.implgen.GenerationScope;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConvertTest {
+
+    @Test
+    public void convert() {
+        AdapterManager manager = new AdapterManager();
+
+        manager.registerConverter(Text.class, String.class, TextToStringConverter.INSTANCE);
+        manager.register(AdapterSpecification.createFromInterface(TextPersonAdapter.class, TextPerson.class, Lib1_Person.class));
+
+        TextPerson person = manager.adaptUnchecked(Lib1_Person.class, new Lib1_Person("Mary", 20), TextPerson.class);
+
+        Assert.assertEquals("Mary", person.getPlainName());
+        Assert.assertSame(TextToStringConverter.INSTANCE, ((TextPersonAdapter) person).textToString());
+    }
+
+    @Test
+    public void primitiveField() {
+        AdapterManager manager = new AdapterManager();
+
+        manager.registerConverter(Text.class, String.class, TextToStringConverter.INSTANCE);
+        manager.register(AdapterSpecification.createFromInterface(CountingTextPersonAdapter.class, TextPerson.class, Lib1_Person.class));
+
+        TextPerson person = manager.adaptUnchecked(Lib1_Person.class, new Lib1_Person("Mary", 20), TextPerson.class);
+
+        Assert.assertEquals("Mary", person.getPlainName());
+        Assert.assertEquals("Mary", person.getPlainName());
+        Assert.assertEquals(2, ((CountingTextPersonAdapter) person).getConversions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongTargetType() {
+        new GenerationScope().genImpl(WrongTextPersonAdapter.class, Lib1_Person.class);
+    }
+
+    @Test
+    public void additionalHandlers() {
+        // Additional handlers are only supported by Kores pipeline, which does not implement @Convert,
+        // the generation fails explicitly instead of leaving the method unimplemented.
+        try {
+            new GenerationScope().genImpl(AdditionalTextPersonAdapter.class, Lib1_Person.class);
+            Assert.fail("Generation should fail with additional handlers.");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("additional handlers are present"));
+        }
+    }
+
+    public interface TextPerson {
+        String getPlainName();
+    }
+
+    public interface TextPersonAdapter extends TextPerson, Adapter<Lib1_Person> {
+
+        @Convert(from = Text.class, to = String.class)
+        String toPlain(Text text);
+
+        @Convert(from = Text.class, to = String.class)
+        Converter<Text, String> textToString();
+
+        @Override
+        default String getPlainName() {
+            return this.toPlain(new Text(this.getOriginalInstance().getName()));
+        }
+    }
+
+    public interface WrongTextPersonAdapter extends TextPerson, Adapter<Lib1_Person> {
+
+        @Convert(from = Text.class, to = String.class)
+        Integer toPlain(Text text);
+
+        @Override
+        default String getPlainName() {
+            return String.valueOf(this.toPlain(new Text(this.getOriginalInstance().getName())));
+        }
+    }
+
+    @Additional(ImplAddTest.class)
+    @Field(value = "conversions", type = int.class, getter = "getConversions", setter = "setConversions")
+    public interface CountingTextPersonAdapter extends TextPersonAdapter {
+        int getConversions();
+
+        void setConversions(int conversions);
+
+        @Override
+        default String getPlainName() {
+            this.setConversions(this.getConversions() + 1);
+            return TextPersonAdapter.super.getPlainName();
+        }
+    }
+
+    public interface AdditionalTextPersonAdapter extends TextPersonAdapter {
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.implgen.AdapterImplGen;
+import com.github.jonathanxd.adapterhelper.implgen.DefaultImplsInliner;
+import com.github.jonathanxd.kores.bytecode.BytecodeClass;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.List;
+
+public class DirectAdapterGenTest {
+
+    /**
+     * Enables {@link #benchmark()}, which is not part of the unit suite.
+     */
+    private static final String BENCHMARK = "adapterhelper.benchmark";
+
+    private static final int CLASSES = 200;
+
+    @Test
+    public void sameShape() throws Exception {
+        Class<?> direct = generate("Direct", true, false);
+        Class<?> kores = generate("Kores", false, false);
+
+        Assert.assertTrue(MyAdapterKt.class.isAssignableFrom(direct));
+        Assert.assertArrayEquals(
+                kores.getDeclaredConstructor(Lib1_Person.class, AdapterManager.class).getParameterTypes(),
+                direct.getDeclaredConstructor(Lib1_Person.class, AdapterManager.class).getParameterTypes());
+
+        Lib1_Person person = new Lib1_Person("Mary", 20);
+        DynamicFieldTest.MyPerson myPerson = (DynamicFieldTest.MyPerson) direct
+                .getDeclaredConstructor(Lib1_Person.class, AdapterManager.class)
+                .newInstance(person, new AdapterManager());
+
+        Assert.assertEquals("Mary", myPerson.getName());
+        Assert.assertEquals(20, myPerson.getAge());
+        Assert.assertNotNull(myPerson.getParents());
+    }
+
+    @Test
+    public void inlining() throws Exception {
+        Class<?> inlined = generate("Inlined", true, true);
+
+        Assert.assertTrue(DefaultImplsInliner.inlinedMethods(MyAdapterKt.class, Lib1_Person.class).contains("getName()Ljava/lang/String;"));
+
+        DynamicFieldTest.MyPerson myPerson = (DynamicFieldTest.MyPerson) inlined
+                .getDeclaredConstructor(Lib1_Person.class, AdapterManager.class)
+                .newInstance(new Lib1_Person("Mary", 20), new AdapterManager());
+
+        Assert.assertEquals("Mary", myPerson.getName());
+        Assert.assertEquals(20, myPerson.getAge());
+    }
+
+    @Test
+    public void benchmark() {
+        Assume.assumeTrue("Enabled by -D" + BENCHMARK + "=true", Boolean.getBoolean(BENCHMARK));
+
+        // Warm up both generators
+        run(true, CLASSES);
+        run(false, CLASSES);
+
+        long direct = run(true, CLASSES);
+        long kores = run(false, CLASSES);
+
+        System.out.println("Generation time per class, direct: " + (direct / CLASSES) + "ns, Kores: " + (kores / CLASSES) + "ns");
+    }
+
+    /**
+     * Generates the implementation of {@link MyAdapterKt} with explicit generator options (instead of
+     * changing global properties) and defines it in a new class loader.
+     */
+    private static Class<?> generate(String suffix, boolean direct, boolean inline) {
+        String name = MyAdapterKt.class.getName() + "_" + suffix;
+        List<BytecodeClass> bytecode = AdapterImplGen.genImplBytecode(MyAdapterKt.class, Lib1_Person.class, name, direct, inline);
+
+        return new Loader().define(name, bytecode.get(0).getBytecode());
+    }
+
+    private static long run(boolean direct, int classes) {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < classes; ++i) {
+            AdapterImplGen.genImplBytecode(MyAdapterKt.class, Lib1_Person.class, "Benchmark_" + i, direct, false);
+            AdapterImplGen.genImplBytecode(DynamicFieldTest.MyAdapter.class, Lib1_Person.class, "Benchmark_" + i, direct, false);
+        }
+
+        return (System.nanoTime() - start) / 2;
+    }
+
+    private static final class Loader extends ClassLoader {
+        Loader() {
+            super(DirectAdapterGenTest.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return this.defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
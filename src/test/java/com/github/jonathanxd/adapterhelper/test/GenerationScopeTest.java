@@ -0,0 +1,78 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.implgen.AdapterImplGen;
+import com.github.jonathanxd.adapterhelper.implgen.GenerationScope;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GenerationScopeTest {
+
+    private static final int SCOPES = 50;
+
+    @Test
+    public void scoped() {
+        GenerationScope scope = new GenerationScope();
+
+        Class<?> first = scope.genImpl(DynamicFieldTest.MyAdapter.class, Lib1_Person.class);
+
+        Assert.assertSame(first, scope.genImpl(DynamicFieldTest.MyAdapter.class, Lib1_Person.class));
+        Assert.assertNotSame(first, new GenerationScope().genImpl(DynamicFieldTest.MyAdapter.class, Lib1_Person.class));
+        Assert.assertNotSame(first, AdapterImplGen.genImpl(DynamicFieldTest.MyAdapter.class, Lib1_Person.class));
+    }
+
+    @Test
+    public void unload() throws InterruptedException {
+        List<WeakReference<Class<?>>> classes = this.generate();
+
+        for (int i = 0; i < 50 && classes.stream().anyMatch(it -> it.get() != null); ++i) {
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        Assert.assertTrue(classes.stream().allMatch(it -> it.get() == null));
+    }
+
+    private List<WeakReference<Class<?>>> generate() {
+        List<WeakReference<Class<?>>> classes = new ArrayList<>();
+
+        for (int i = 0; i < SCOPES; ++i) {
+            GenerationScope scope = new GenerationScope();
+
+            classes.add(new WeakReference<>(scope.genImpl(DynamicFieldTest.MyAdapter.class, Lib1_Person.class)));
+        }
+
+        return classes;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.AdapterSpecification;
+import com.github.jonathanxd.adapterhelper.ClosedWorld;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LazySpecificationTest {
+
+    @Test
+    public void lazy() {
+        AdapterManager manager = new AdapterManager();
+
+        manager.registerLazyFromInterface(MyAdapterKt.class, DynamicFieldTest.MyPerson.class, Lib1_Person.class);
+
+        DynamicFieldTest.MyPerson person = manager.adaptUnchecked(Lib1_Person.class, new Lib1_Person("Mary", 20),
+                DynamicFieldTest.MyPerson.class);
+
+        Assert.assertEquals("Mary", person.getName());
+    }
+
+    @Test
+    public void generationIsDeferred() {
+        AdapterManager manager = new AdapterManager();
+
+        // Not an interface, fails only when generated
+        AdapterSpecification<Lib1_Person, Object> specification =
+                AdapterSpecification.createLazyFromInterface(Object.class, Object.class, Lib1_Person.class);
+
+        manager.register(specification);
+
+        try {
+            specification.create(new Lib1_Person("Mary", 20), manager);
+            Assert.fail("Generation should fail on first use.");
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    @Test
+    public void closedWorldFailsOnRegistration() {
+        ClosedWorld.runWith(true, () -> {
+            AdapterManager manager = new AdapterManager();
+
+            try {
+                // Not pregenerated
+                manager.registerLazyFromInterface(DynamicFieldTest.MyAdapter.class, DynamicFieldTest.MyPerson.class,
+                        Lib1_Person.class);
+                Assert.fail("Registration should fail in closed-world mode.");
+            } catch (IllegalStateException expected) {
+                // Expected
+            }
+
+            Assert.assertTrue(manager.getUnmodAdapterSpecificationSet().isEmpty());
+
+            return null;
+        });
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.Adapter;
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.AdapterSpecification;
+import com.github.jonathanxd.adapterhelper.implgen.Field;
+import com.github.jonathanxd.adapterhelper.implgen.GenerationScope;
+import com.github.jonathanxd.adapterhelper.implgen.MemoizeAdapted;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class MemoizeAdaptedTest {
+
+    @Test
+    public void memoize() {
+        AdapterManager manager = new AdapterManager();
+
+        manager.register(AdapterSpecification.createFromInterface(Lib2PersonAdapter.class, IPersonWithParents.class, Lib2_Person.class));
+
+        Lib2_Person mother = new Lib2_Person("Mary", 40, Collections.emptyList());
+        Lib2_Person son = new Lib2_Person("Carl", 19, Collections.singletonList(mother));
+
+        IPersonWithParents person = manager.adaptUnchecked(Lib2_Person.class, son, IPersonWithParents.class);
+
+        List<IPersonWithParents> parents = person.getParents();
+
+        Assert.assertEquals(1, parents.size());
+        Assert.assertEquals("Mary", parents.get(0).getName());
+        Assert.assertSame(parents, person.getParents());
+    }
+
+    @Test
+    public void recomputeWhenSourceChanges() {
+        AdapterManager manager = new AdapterManager();
+
+        manager.register(AdapterSpecification.createFromInterface(Lib2PersonAdapter.class, IPersonWithParents.class, Lib2_Person.class));
+        manager.register(AdapterSpecification.createFromInterface(GroupAdapter.class, AdaptedGroup.class, Group.class));
+
+        Group group = new Group(new ArrayList<>(Collections.singletonList(new Lib2_Person("Mary", 40, Collections.emptyList()))));
+        AdaptedGroup adapted = manager.adaptUnchecked(Group.class, group, AdaptedGroup.class);
+
+        List<IPersonWithParents> members = adapted.getMembers();
+
+        Assert.assertSame(members, adapted.getMembers());
+
+        group.setMembers(Collections.singletonList(new Lib2_Person("Carl", 19, Collections.emptyList())));
+
+        List<IPersonWithParents> newMembers = adapted.getMembers();
+
+        Assert.assertNotSame(members, newMembers);
+        Assert.assertEquals("Carl", newMembers.get(0).getName());
+        Assert.assertSame(newMembers, adapted.getMembers());
+    }
+
+    @Test
+    public void primitiveField() {
+        AdapterManager manager = new AdapterManager();
+
+        manager.register(AdapterSpecification.createFromInterface(Lib2PersonAdapter.class, IPersonWithParents.class, Lib2_Person.class));
+        manager.register(AdapterSpecification.createFromInterface(RankedGroupAdapter.class, RankedGroup.class, Group.class));
+
+        Group group = new Group(Collections.singletonList(new Lib2_Person("Mary", 40, Collections.emptyList())));
+        RankedGroup adapted = manager.adaptUnchecked(Group.class, group, RankedGroup.class);
+
+        adapted.setRank(3);
+
+        Assert.assertEquals(3, adapted.getRank());
+        Assert.assertSame(adapted.getMembers(), adapted.getMembers());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSource() {
+        new GenerationScope().genImpl(UnknownSourceAdapter.class, Group.class);
+    }
+
+    public interface IPersonWithParents {
+        String getName();
+
+        List<IPersonWithParents> getParents();
+    }
+
+    public interface Lib2PersonAdapter extends IPersonWithParents, Adapter<Lib2_Person> {
+        @Override
+        default String getName() {
+            return this.getOriginalInstance().getName();
+        }
+
+        @Override
+        @MemoizeAdapted(source = "getParents")
+        default List<IPersonWithParents> getParents() {
+            return this.getAdapterManager().createAdapterList(Lib2_Person.class, this.getOriginalInstance().getParents(),
+                    IPersonWithParents.class);
+        }
+    }
+
+    public static class Group {
+        private List<Lib2_Person> members;
+
+        public Group(List<Lib2_Person> members) {
+            this.members = members;
+        }
+
+        public List<Lib2_Person> getMembers() {
+            return this.members;
+        }
+
+        public void setMembers(List<Lib2_Person> members) {
+            this.members = members;
+        }
+    }
+
+    public interface AdaptedGroup {
+        List<IPersonWithParents> getMembers();
+    }
+
+    public interface GroupAdapter extends AdaptedGroup, Adapter<Group> {
+        @Override
+        @MemoizeAdapted(source = "getMembers")
+        default List<IPersonWithParents> getMembers() {
+            return this.getAdapterManager().createAdapterList(Lib2_Person.class,
+                    this.getOriginalInstance().getMembers(), IPersonWithParents.class);
+        }
+    }
+
+    public interface RankedGroup extends AdaptedGroup {
+        int getRank();
+
+        void setRank(int rank);
+    }
+
+    @Field(value = "rank", type = int.class, getter = "getRank", setter = "setRank")
+    public interface RankedGroupAdapter extends RankedGroup, Adapter<Group> {
+        @Override
+        @MemoizeAdapted(source = "getMembers")
+        default List<IPersonWithParents> getMembers() {
+            return this.getAdapterManager().createAdapterList(Lib2_Person.class,
+                    this.getOriginalInstance().getMembers(), IPersonWithParents.class);
+        }
+    }
+
+    public interface UnknownSourceAdapter extends AdaptedGroup, Adapter<Group> {
+        @Override
+        @MemoizeAdapted(source = "getPeople")
+        default List<IPersonWithParents> getMembers() {
+            return this.getAdapterManager().createAdapterList(Lib2_Person.class,
+                    this.getOriginalInstance().getMembers(), IPersonWithParents.class);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.Adapter;
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.AdapterSpecification;
+import com.github.jonathanxd.adapterhelper.implgen.Field;
+import com.github.jonathanxd.adapterhelper.implgen.GenerationScope;
+import com.github.jonathanxd.adapterhelper.implgen.Memoize;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class MemoizeTest {
+
+    @Test
+    public void memoize() throws Exception {
+        AdapterManager manager = new AdapterManager();
+
+        manager.register(AdapterSpecification.createFromInterface(OrderAdapter.class, IOrder.class, Order.class));
+
+        Order order = new Order(10, 20, 30);
+        IOrder adapted = manager.adaptUnchecked(Order.class, order, IOrder.class);
+
+        // Computed in construction.
+        Assert.assertEquals(1, order.reads.get());
+
+        Assert.assertEquals(60, adapted.getTotal());
+        Assert.assertEquals(60, adapted.getTotal());
+        Assert.assertEquals(1, order.reads.get());
+
+        Assert.assertEquals(int.class, adapted.getClass().getDeclaredField("getTotal$memo").getType());
+    }
+
+    @Test
+    public void dependent() {
+        AdapterManager manager = new AdapterManager();
+
+        manager.register(AdapterSpecification.createFromInterface(StatsAdapter.class, IStats.class, Order.class));
+
+        Order order = new Order(10, 20, 30);
+        IStats adapted = manager.adaptUnchecked(Order.class, order, IStats.class);
+
+        // Each value is computed once, regardless of the order in which they are computed in construction.
+        Assert.assertEquals(1, order.reads.get());
+
+        Assert.assertEquals(60, adapted.getTotal());
+        Assert.assertEquals(20, adapted.getAverage());
+        Assert.assertEquals(80, adapted.getTotalWithAverage());
+        Assert.assertEquals(1, order.reads.get());
+    }
+
+    @Test
+    public void primitiveField() throws Exception {
+        AdapterManager manager = new AdapterManager();
+
+        manager.register(AdapterSpecification.createFromInterface(DiscountOrderAdapter.class, IDiscountOrder.class, Order.class));
+
+        Order order = new Order(10, 20, 30);
+        IDiscountOrder adapted = manager.adaptUnchecked(Order.class, order, IDiscountOrder.class);
+
+        // Default value of field is set before the value is computed in construction.
+        Assert.assertEquals(5, adapted.getDiscount());
+        Assert.assertEquals(55, adapted.getTotal());
+
+        adapted.setDiscount(10);
+
+        Assert.assertEquals(10, adapted.getDiscount());
+        Assert.assertEquals(55, adapted.getTotal());
+        Assert.assertEquals(1, order.reads.get());
+
+        Assert.assertEquals(int.class, adapted.getClass().getDeclaredField("discount").getType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void withParameters() {
+        new GenerationScope().genImpl(InvalidOrderAdapter.class, Order.class);
+    }
+
+    @Test
+    public void lazy() throws Exception {
+        AdapterManager manager = new AdapterManager();
+
+        manager.register(AdapterSpecification.createFromInterface(LazyOrderAdapter.class, ILazyOrder.class, Order.class));
+
+        Order order = new Order(10, 20, 30);
+        ILazyOrder adapted = manager.adaptUnchecked(Order.class, order, ILazyOrder.class);
+
+        Assert.assertEquals(0, order.reads.get());
+
+        Assert.assertEquals(60L, adapted.getTotal());
+        Assert.assertEquals(60L, adapted.getTotal());
+        Assert.assertEquals(1, order.reads.get());
+
+        Assert.assertEquals("Order of 3 items", adapted.getDescription());
+        Assert.assertSame(adapted.getDescription(), adapted.getDescription());
+
+        Assert.assertEquals(long.class, adapted.getClass().getDeclaredField("getTotal$memo").getType());
+    }
+
+    @Test
+    public void lazyConcurrent() throws Exception {
+        AdapterManager manager = new AdapterManager();
+
+        manager.register(AdapterSpecification.createFromInterface(LazyOrderAdapter.class, ILazyOrder.class, Order.class));
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            for (int i = 0; i < 100; ++i) {
+                Order order = new Order(i, 1, 2);
+                ILazyOrder adapted = manager.adaptUnchecked(Order.class, order, ILazyOrder.class);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Long>> results = new ArrayList<>();
+
+                for (int t = 0; t < threads; ++t) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return adapted.getTotal();
+                    }));
+                }
+
+                start.countDown();
+
+                for (Future<Long> result : results)
+                    Assert.assertEquals(i + 3L, (long) result.get());
+
+                Assert.assertEquals(1, order.reads.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public static class Order {
+        final AtomicInteger reads = new AtomicInteger();
+        private final int[] prices;
+
+        public Order(int... prices) {
+            this.prices = prices;
+        }
+
+        public int[] getPrices() {
+            this.reads.incrementAndGet();
+            return this.prices;
+        }
+
+        public int getSize() {
+            return this.prices.length;
+        }
+    }
+
+    public interface IOrder {
+        int getTotal();
+    }
+
+    public interface OrderAdapter extends IOrder, Adapter<Order> {
+        @Override
+        @Memoize
+        default int getTotal() {
+            int total = 0;
+
+            for (int price : this.getOriginalInstance().getPrices())
+                total += price;
+
+            return total;
+        }
+    }
+
+    public interface IStats {
+        int getTotal();
+
+        int getAverage();
+
+        int getTotalWithAverage();
+    }
+
+    public interface StatsAdapter extends IStats, Adapter<Order> {
+        @Override
+        @Memoize
+        default int getAverage() {
+            return this.getTotal() / this.getOriginalInstance().getSize();
+        }
+
+        @Override
+        @Memoize
+        default int getTotalWithAverage() {
+            return this.getTotal() + this.getAverage();
+        }
+
+        @Override
+        @Memoize
+        default int getTotal() {
+            int total = 0;
+
+            for (int price : this.getOriginalInstance().getPrices())
+                total += price;
+
+            return total;
+        }
+    }
+
+    public interface IDiscountOrder extends IOrder {
+        int getDiscount();
+
+        void setDiscount(int discount);
+    }
+
+    @Field(value = "discount", type = int.class, getter = "getDiscount", setter = "setDiscount",
+            defaultValueProvider = DiscountProvider.class)
+    public interface DiscountOrderAdapter extends IDiscountOrder, Adapter<Order> {
+        @Override
+        @Memoize
+        default int getTotal() {
+            int total = -this.getDiscount();
+
+            for (int price : this.getOriginalInstance().getPrices())
+                total += price;
+
+            return total;
+        }
+    }
+
+    public static class DiscountProvider implements Supplier<Integer> {
+
+        public static final DiscountProvider INSTANCE = new DiscountProvider();
+
+        protected DiscountProvider() {
+
+        }
+
+        @Override
+        public Integer get() {
+            return 5;
+        }
+    }
+
+    public interface InvalidOrderAdapter extends IOrder, Adapter<Order> {
+        @Override
+        default int getTotal() {
+            return this.getTotal(0);
+        }
+
+        @Memoize
+        default int getTotal(int discount) {
+            int total = -discount;
+
+            for (int price : this.getOriginalInstance().getPrices())
+                total += price;
+
+            return total;
+        }
+    }
+
+    public interface ILazyOrder {
+        long getTotal();
+
+        String getDescription();
+    }
+
+    public interface LazyOrderAdapter extends ILazyOrder, Adapter<Order> {
+        @Override
+        @Memoize(lazy = true)
+        default long getTotal() {
+            long total = 0;
+
+            for (int price : this.getOriginalInstance().getPrices())
+                total += price;
+
+            return total;
+        }
+
+        @Override
+        @Memoize(lazy = true)
+        default String getDescription() {
+            return "Order of " + this.getOriginalInstance().getSize() + " items";
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.Adapter;
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.AdapterSpecification;
+import com.github.jonathanxd.adapterhelper.ClosedWorld;
+import com.github.jonathanxd.adapterhelper.implgen.Pregenerate;
+import com.github.jonathanxd.adapterhelper.implgen.PregeneratedAdapters;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Requires pregenerateTestAdapters task.
+ */
+public class PregenerateTest {
+
+    @Test
+    public void pregenerated() {
+        AdapterManager manager = AdapterManager.create();
+
+        Class<?> implementation = PregeneratedAdapters.find(PregeneratedAdapter.class, Lib1_Person.class);
+
+        Assert.assertNotNull(implementation);
+
+        AdapterSpecification<Lib1_Person, MyPerson> specification =
+                AdapterSpecification.createFromInterface(PregeneratedAdapter.class, MyPerson.class, Lib1_Person.class);
+
+        MyPerson person = specification.create(new Lib1_Person("Mary", 20), manager);
+
+        Assert.assertSame(implementation, person.getClass());
+        Assert.assertEquals("Mary", person.getName());
+    }
+
+    @Test
+    public void closedWorld() {
+        ClosedWorld.runWith(true, () -> {
+            AdapterManager manager = AdapterManager.create();
+
+            manager.registerPregenerated();
+
+            MyPerson person = manager.adaptUnchecked(Lib1_Person.class, new Lib1_Person("Mary", 20), MyPerson.class);
+
+            Assert.assertEquals("Mary", person.getName());
+
+            try {
+                AdapterSpecification.createFromInterface(DynamicFieldTest.MyAdapter.class, DynamicFieldTest.MyPerson.class, Lib1_Person.class);
+                Assert.fail("Implementation should not be generated in closed-world mode.");
+            } catch (IllegalStateException expected) {
+                // Expected
+            }
+
+            return null;
+        });
+    }
+
+    public interface MyPerson {
+        String getName();
+
+        int getAge();
+    }
+
+    @Pregenerate(adapterClass = MyPerson.class, adapteeClass = Lib1_Person.class)
+    public interface PregeneratedAdapter extends MyPerson, Adapter<Lib1_Person> {
+        @Override
+        default String getName() {
+            return this.getOriginalInstance().getName();
+        }
+
+        @Override
+        default int getAge() {
+            return this.getOriginalInstance().getAge();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *      AdapterHelper - Adapter management helper. <https://github.com/JonathanxD/AdapterHelper>
+ *
+ *         The MIT License (MIT)
+ *
+ *      Copyright (c) 2018 TheRealBuggy/JonathanxD (https://github.com/JonathanxD/ & https://github.com/TheRealBuggy/) <jonathan.scripter@programmer.net>
+ *      Copyright (c) contributors
+ *
+ *
+ *      Permission is hereby granted, free of charge, to any person obtaining a copy
+ *      of this software and associated documentation files (the "Software"), to deal
+ *      in the Software without restriction, including without limitation the rights
+ *      to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *      copies of the Software, and to permit persons to whom the Software is
+ *      furnished to do so, subject to the following conditions:
+ *
+ *      The above copyright notice and this permission notice shall be included in
+ *      all copies or substantial portions of the Software.
+ *
+ *      THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *      IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *      FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *      AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *      LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *      OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *      THE SOFTWARE.
+ */
+package com.github.jonathanxd.adapterhelper.test;
+
+import com.github.jonathanxd.adapterhelper.AdapterManager;
+import com.github.jonathanxd.adapterhelper.AdapterSpecification;
+import com.github.jonathanxd.adapterhelper.CachePolicy;
+import com.github.jonathanxd.adapterhelper.EvictionPolicy;
+import com.github.jonathanxd.adapterhelper.StrongCache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class StrongCacheTest {
+
+    @Test
+    public void maximumSize() {
+        AdapterManager adapterManager = AdapterManager.create();
+
+        adapterManager.register(AdapterSpecification.create(LruAdapter::new, LruAdapter.class, OldPerson.class));
+
+        OldPerson josh = new OldPerson("Josh", 32);
+        OldPerson mary = new OldPerson("Mary", 19);
+        OldPerson carl = new OldPerson("Carl", 28);
+
+        Person joshAdapter = adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class);
+        Person maryAdapter = adapterManager.adaptUnchecked(OldPerson.class, mary, Person.class);
+
+        // Josh is now the most recently used
+        Assert.assertSame(joshAdapter, adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class));
+
+        adapterManager.adaptUnchecked(OldPerson.class, carl, Person.class);
+
+        Assert.assertEquals(2, adapterManager.getUnmodStrongCache().size());
+        Assert.assertSame(joshAdapter, adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class));
+        Assert.assertNotSame(maryAdapter, adapterManager.adaptUnchecked(OldPerson.class, mary, Person.class));
+    }
+
+    @Test
+    public void newAdapterIsNotEvicted() {
+        AdapterManager adapterManager = new AdapterManager(true);
+
+        adapterManager.register(AdapterSpecification.create(LfuAdapter::new, LfuAdapter.class, OldPerson.class));
+
+        OldPerson josh = new OldPerson("Josh", 32);
+        OldPerson mary = new OldPerson("Mary", 19);
+
+        Person joshAdapter = adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class);
+
+        Assert.assertSame(joshAdapter, adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class));
+
+        Person maryAdapter = adapterManager.adaptUnchecked(OldPerson.class, mary, Person.class);
+
+        Assert.assertSame(maryAdapter, adapterManager.adaptUnchecked(OldPerson.class, mary, Person.class));
+        Assert.assertEquals(1, adapterManager.getUnmodStrongCache().size());
+    }
+
+    @Test
+    public void maximumSizeAcrossStripes() {
+        AdapterManager adapterManager = new AdapterManager(true);
+
+        adapterManager.register(AdapterSpecification.create(LruAdapter::new, LruAdapter.class, OldPerson.class));
+
+        for (int i = 0; i < 100; ++i)
+            adapterManager.adaptUnchecked(OldPerson.class, new OldPerson("Person " + i, i), Person.class);
+
+        Assert.assertEquals(2, adapterManager.getUnmodStrongCache().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroMaximumSize() {
+        CachePolicy.of(ZeroAdapter.class);
+    }
+
+    @Test
+    public void expireAfterAccess() throws Exception {
+        AdapterManager adapterManager = AdapterManager.create();
+
+        adapterManager.register(AdapterSpecification.create(ExpiringAdapter::new, ExpiringAdapter.class, OldPerson.class));
+
+        OldPerson josh = new OldPerson("Josh", 32);
+
+        Person joshAdapter = adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class);
+
+        Assert.assertSame(joshAdapter, adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class));
+
+        Thread.sleep(100);
+
+        Assert.assertNotSame(joshAdapter, adapterManager.adaptUnchecked(OldPerson.class, josh, Person.class));
+    }
+
+    @Test
+    public void uncacheAllStrong() {
+        AdapterManager adapterManager = AdapterManager.create();
+
+        adapterManager.register(AdapterSpecification.create(LruAdapter::new, LruAdapter.class, OldPerson.class));
+        adapterManager.register(AdapterSpecification.create(StrongAdapter::new, StrongAdapter.class, OldPerson.class));
+
+        OldPerson josh = new OldPerson("Josh", 32);
+        OldPerson mary = new OldPerson("Mary", 19);
+
+        adapterManager.adaptUnchecked(OldPerson.class, josh, LruAdapter.class);
+        adapterManager.adaptUnchecked(OldPerson.class, josh, StrongAdapter.class);
+        adapterManager.adaptUnchecked(OldPerson.class, mary, StrongAdapter.class);
+
+        Assert.assertEquals(3, adapterManager.getUnmodStrongCache().size());
+        Assert.assertTrue(adapterManager.uncacheAllStrong(josh));
+        Assert.assertFalse(adapterManager.uncacheAllStrong(josh));
+        Assert.assertEquals(1, adapterManager.getUnmodStrongCache().size());
+
+        adapterManager.adaptUnchecked(OldPerson.class, josh, StrongAdapter.class);
+
+        Assert.assertTrue(adapterManager.uncacheAllStrongOf(Arrays.asList(josh, mary)));
+        Assert.assertTrue(adapterManager.getUnmodStrongCache().isEmpty());
+    }
+
+    @Test
+    public void unregister() {
+        AdapterManager adapterManager = AdapterManager.create();
+        AdapterSpecification<OldPerson, StrongAdapter> specification =
+                AdapterSpecification.create(StrongAdapter::new, StrongAdapter.class, OldPerson.class);
+
+        adapterManager.register(specification);
+
+        OldPerson josh = new OldPerson("Josh", 32);
+
+        adapterManager.adaptUnchecked(OldPerson.class, josh, StrongAdapter.class);
+
+        Assert.assertEquals(1, adapterManager.getUnmodStrongCache().size());
+
+        adapterManager.unregister(specification);
+
+        Assert.assertTrue(adapterManager.getUnmodStrongCache().isEmpty());
+        Assert.assertFalse(adapterManager.uncacheAllStrong(josh));
+    }
+
+    @StrongCache
+    public static class StrongAdapter extends SimpleAdapter {
+        public StrongAdapter(OldPerson old, AdapterManager adapterManager) {
+            super(old, adapterManager);
+        }
+    }
+
+    @StrongCache(maximumSize = 2, eviction = EvictionPolicy.LRU)
+    public static class LruAdapter extends SimpleAdapter {
+        public LruAdapter(OldPerson old, AdapterManager adapterManager) {
+            super(old, adapterManager);
+        }
+    }
+
+    @StrongCache(maximumSize = 1, eviction = EvictionPolicy.LFU)
+    public static class LfuAdapter extends SimpleAdapter {
+        public LfuAdapter(OldPerson old, AdapterManager adapterManager) {
+            super(old, adapterManager);
+        }
+    }
+
+    @StrongCache(maximumSize = 0)
+    public static class ZeroAdapter extends SimpleAdapter {
+        public ZeroAdapter(OldPerson old, AdapterManager adapterManager) {
+            super(old, adapterManager);
+        }
+    }
+
+    @StrongCache(expireAfterAccess = 50)
+    public static class ExpiringAdapter extends SimpleAdapter {
+        public ExpiringAdapter(OldPerson old, AdapterManager adapterManager) {
+            super(old, adapterManager);
+        }
+    }
+}